@@ -1,5 +1,6 @@
 package me.paulbgd.bgdcore;
 
+import com.google.common.base.Joiner;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
@@ -7,6 +8,7 @@ import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
@@ -15,15 +17,20 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.zip.GZIPOutputStream;
 import lombok.Getter;
+import me.paulbgd.bgdcore.commands.def.BenchCommand;
 import me.paulbgd.bgdcore.commands.def.ItemData;
 import me.paulbgd.bgdcore.commands.def.ReloadConfigCommand;
 import me.paulbgd.bgdcore.configuration.ConfigurationFile;
 import me.paulbgd.bgdcore.configuration.CoreConfiguration;
 import me.paulbgd.bgdcore.io.json.JSONInputStream;
 import me.paulbgd.bgdcore.listeners.PlayerListener;
+import me.paulbgd.bgdcore.listeners.PluginListener;
 import me.paulbgd.bgdcore.nms.NMSManager;
 import me.paulbgd.bgdcore.player.PlayerWrapper;
 import me.paulbgd.bgdcore.player.PluginPlayerData;
+import me.paulbgd.bgdcore.reflection.FieldAccessor;
+import me.paulbgd.bgdcore.reflection.MemberCache;
+import me.paulbgd.bgdcore.reflection.NMSReflection;
 import net.minidev.json.JSONObject;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.Validate;
@@ -47,6 +54,9 @@ public class BGDCore extends JavaPlugin {
 
     @Override
     public void onEnable() {
+        Map<String, Long> timings = new LinkedHashMap<>();
+        long start = System.nanoTime(), time = start;
+
         // set some defaults
         logging = this.getLogger();
 
@@ -58,24 +68,65 @@ public class BGDCore extends JavaPlugin {
         if (!playerFolder.exists() && !playerFolder.mkdir()) {
             logging.warning("Failed to create player data folder! Will continue on..");
         }
+        time = lap(timings, "folders", time);
 
         // register our own configuration
         registerConfiguration(new CoreConfiguration(new File(getDataFolder(), "config.json")));
-
-        // load nms
-        new NMSManager();
+        time = lap(timings, "configuration", time);
 
         // register our own commands
         new ReloadConfigCommand(this);
         new ItemData(this);
+        new BenchCommand(this);
+        time = lap(timings, "commands", time);
 
         // register our own listeners
         getServer().getPluginManager().registerEvents(new PlayerListener(), this);
+        getServer().getPluginManager().registerEvents(new PluginListener(), this);
+        time = lap(timings, "listeners", time);
 
         // in the case of a reload, let's load our player wrappers
         for (Player player : Bukkit.getOnlinePlayers()) {
             addPlayerWrapper(player.getUniqueId(), loadPlayerWrapper(player));
         }
+        lap(timings, "players", time);
+
+        StringBuilder report = new StringBuilder(String.format("Enabled in %.1fms (", (System.nanoTime() - start) / 1000000D));
+        for (Map.Entry<String, Long> entry : timings.entrySet()) {
+            report.append(String.format("%s %.1fms, ", entry.getKey(), entry.getValue() / 1000000D));
+        }
+        logging.info(report.substring(0, report.length() - 2) + ")");
+
+        // nms is only loaded when it's first used, so find the classes now while the server's still starting
+        final BGDCore plugin = this;
+        new BukkitRunnable() {
+            @Override
+            public void run() {
+                long start = System.nanoTime();
+                NMSReflection.resolveAll();
+                final double resolving = (System.nanoTime() - start) / 1000000D;
+                // the adapter itself touches minecraft, so that's loaded back on the main thread
+                new BukkitRunnable() {
+                    @Override
+                    public void run() {
+                        long start = System.nanoTime();
+                        List<String> missing = NMSManager.verify();
+                        double took = (System.nanoTime() - start) / 1000000D;
+                        if (missing.isEmpty()) {
+                            logging.info(String.format("Loaded NMS in %.1fms, %.1fms of it on the main thread!", resolving + took, took));
+                        } else {
+                            logging.warning(String.format("Loaded NMS in %.1fms, %.1fms of it on the main thread, but couldn't find: %s. Things may not work right.", resolving + took, took, Joiner.on(", ").join(missing)));
+                        }
+                    }
+                }.runTask(plugin);
+            }
+        }.runTaskAsynchronously(this);
+    }
+
+    private static long lap(Map<String, Long> timings, String name, long start) {
+        long now = System.nanoTime();
+        timings.put(name, now - start);
+        return now;
     }
 
     @Override
@@ -90,6 +141,8 @@ public class BGDCore extends JavaPlugin {
         for (PlayerWrapper playerWrapper : wrappers.values()) {
             savePlayerWrapper(playerWrapper);
         }
+        MemberCache.clear();
+        FieldAccessor.clear();
     }
 
     @Override
@@ -25,23 +25,33 @@
 package me.paulbgd.bgdcore.blocks;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import me.paulbgd.bgdcore.BGDCore;
 import me.paulbgd.bgdcore.blocks.block.BlockPosition;
+import me.paulbgd.bgdcore.blocks.block.Blocks;
 import me.paulbgd.bgdcore.blocks.block.data.BlockData;
 import me.paulbgd.bgdcore.blocks.block.data.ComplexBlockData;
 import me.paulbgd.bgdcore.blocks.block.data.SimpleBlockData;
+import me.paulbgd.bgdcore.blocks.block.paster.PasteBatch;
+import me.paulbgd.bgdcore.blocks.block.paster.PasteOptions;
+import me.paulbgd.bgdcore.blocks.block.paster.PasteStats;
 import me.paulbgd.bgdcore.nms.NMSManager;
 import me.paulbgd.bgdcore.reflection.NMSReflection;
-import me.paulbgd.bgdcore.reflection.ReflectionMethod;
 import me.paulbgd.bgdcore.reflection.ReflectionObject;
-import org.bukkit.Material;
+import org.bukkit.World;
 import org.bukkit.block.Block;
 
 public class BlockUtils {
 
     /**
-     * Gets a list of all the blocks between two points.
+     * Gets a list of all the blocks between two points. This is done all at once on the current thread, so big regions
+     * should be captured with {@link me.paulbgd.bgdcore.blocks.capture.RegionCapture} instead.
      *
      * @param from   where they're being added from
      * @param block1 point 1
@@ -85,37 +95,198 @@ public class BlockUtils {
 
     /**
      * Pastes a list of blocks at a specified location. There is the option to paste with air.
+     * <p/>
+     * Normal blocks are written a chunk at a time using {@link me.paulbgd.bgdcore.nms.BGDNMS#setBlocks(org.bukkit.World, int, int, me.paulbgd.bgdcore.nms.PackedChunk)},
+     * TileEntities are then set one by one.
      *
      * @param blocks   a list of blocks to paste
      * @param location the location to paste at
      * @param air      if or if not to paste the air
      */
     public static void paste(Collection<me.paulbgd.bgdcore.blocks.block.Block> blocks, Block location, boolean air) {
-        int x = location.getX(), y = location.getY(), z = location.getZ();
+        paste(blocks, location, new PasteOptions().setAir(air), null);
+    }
+
+    /**
+     * Pastes a list of blocks at a specified location.
+     * <p/>
+     * Physics are never applied. If the options defer lighting, TileEntities are written with the rest of the blocks and
+     * the returned chunks must be relit with {@link me.paulbgd.bgdcore.nms.BGDNMS#relightChunk(org.bukkit.World, int, int)}
+     * and sent once the paste is done.
+     *
+     * @param blocks   a list of blocks to paste
+     * @param location the location to paste at
+     * @param options  how to paste the blocks
+     * @param stats    where to record how long it took, can be null
+     * @return the keys of the chunks written to, see {@link #getChunkKey(int, int)}
+     */
+    public static Set<Long> paste(Collection<me.paulbgd.bgdcore.blocks.block.Block> blocks, Block location, PasteOptions options, PasteStats stats) {
+        long start = System.nanoTime();
+        Collection<PasteBatch> batches = prepare(blocks, location.getX(), location.getY(), location.getZ(), options);
+        if (stats != null) {
+            stats.addPlan(System.nanoTime() - start);
+        }
+        Set<Long> touched = new LinkedHashSet<>();
+        for (PasteBatch batch : batches) {
+            apply(location.getWorld(), batch, options, stats);
+            touched.add(getChunkKey(batch.getChunkX(), batch.getChunkZ()));
+        }
+        return touched;
+    }
+
+    /**
+     * Splits blocks up by the chunk they'll be pasted in. Doesn't touch the world, so can be done on any thread.
+     *
+     * @param blocks  a list of blocks to paste
+     * @param x       the x to paste at
+     * @param y       the y to paste at
+     * @param z       the z to paste at
+     * @param options how to paste the blocks
+     * @return a batch for every chunk
+     */
+    public static Collection<PasteBatch> prepare(Collection<me.paulbgd.bgdcore.blocks.block.Block> blocks, int x, int y, int z, PasteOptions options) {
+        Map<Long, PasteBatch> batches = new LinkedHashMap<>();
+        Cuboid clear = getClearRegion(blocks, x, y, z, options);
+        if (clear != null) {
+            for (int cx = clear.getMinX() >> 4; cx <= clear.getMaxX() >> 4; cx++) {
+                for (int cz = clear.getMinZ() >> 4; cz <= clear.getMaxZ() >> 4; cz++) {
+                    PasteBatch batch = new PasteBatch(cx, cz);
+                    batch.clear(clear, options);
+                    batches.put(getChunkKey(cx, cz), batch);
+                }
+            }
+        }
         for (me.paulbgd.bgdcore.blocks.block.Block block : blocks) {
             BlockPosition position = block.getPosition();
-            BlockData data = block.getData();
             int j = x + position.getRelativeX(), k = y + position.getRelativeY(), l = z + position.getRelativeZ();
-            if (data.getId() == 0 && (!air || NMSManager.getNms().getId(location.getWorld(), j, k, l) == 0)) {
-                continue; // no need to do air.. again
+            Long key = getChunkKey(j >> 4, l >> 4);
+            PasteBatch batch = batches.get(key);
+            if (batch == null) {
+                batch = new PasteBatch(j >> 4, l >> 4);
+                batches.put(key, batch);
             }
-            try {
-                NMSManager.getNms().setBlock(location.getWorld(), j, k, l, Material.getMaterial(data.getId()), data.getBlockData());
-                if (data instanceof ComplexBlockData) {
-                    ReflectionObject nbtTagCompound = new ReflectionObject(((ComplexBlockData) data).getNBT());
-                    ReflectionMethod setInt = nbtTagCompound.getMethod("setInt", "", 0);
-                    setInt.invoke("x", j);
-                    setInt.invoke("y", k);
-                    setInt.invoke("z", l);
-                    ReflectionObject tileEntity = NMSManager.getNms().getTileEntity(location.getWorld(), j, k, l);
-                    tileEntity.getMethodByClasses("a", NMSReflection.nbtTagCompound.getClazz()).invoke(nbtTagCompound.getObject());
-                    NMSManager.getNms().setTileEntity(location.getWorld(), j, k, l, tileEntity.getObject());
-                } else if (!(data instanceof SimpleBlockData)) {
-                    throw new IllegalArgumentException(String.format("Invalid data type '%s'!", data.getClass()));
-                }
-            } catch (NullPointerException e) {
+            batch.add(j, k, l, block.getData(), options);
+        }
+        return batches.values();
+    }
+
+    /**
+     * Gets the region that has to be filled with air before some blocks are pasted. Sparse {@link me.paulbgd.bgdcore.blocks.block.Blocks}
+     * leave their air out, so when air is being pasted their whole region is cleared first.
+     *
+     * @param blocks  the blocks being pasted
+     * @param x       the x they're pasted at
+     * @param y       the y they're pasted at
+     * @param z       the z they're pasted at
+     * @param options how the blocks are being pasted
+     * @return the region to clear in world coordinates, or null if nothing needs clearing
+     */
+    public static Cuboid getClearRegion(Collection<me.paulbgd.bgdcore.blocks.block.Block> blocks, int x, int y, int z, PasteOptions options) {
+        if (!options.isAir() || !(blocks instanceof Blocks) || !((Blocks) blocks).isSparse()) {
+            return null;
+        }
+        return ((Blocks) blocks).getRegion(x, y, z);
+    }
+
+    /**
+     * Writes a batch of blocks to the world. Must be called on the main thread.
+     *
+     * @param world   the world to paste in
+     * @param batch   the blocks to write
+     * @param options how to paste the blocks
+     * @param stats   where to record how long it took, can be null
+     * @return how many blocks were written
+     */
+    public static int apply(World world, PasteBatch batch, PasteOptions options, PasteStats stats) {
+        return apply(world, batch, options, stats, null);
+    }
+
+    /**
+     * Writes a batch of blocks to the world. Must be called on the main thread.
+     * <p/>
+     * Normal blocks are written all at once using {@link me.paulbgd.bgdcore.nms.BGDNMS#setBlocks(org.bukkit.World, int, int, me.paulbgd.bgdcore.nms.PackedChunk, boolean)},
+     * TileEntities are then set one by one. Players aren't told about any single block, and a chunk split into several
+     * batches is only relit and sent once, after its last batch ({@link PasteBatch#isLastInChunk()}) with
+     * {@link me.paulbgd.bgdcore.nms.BGDNMS#sendChanges(org.bukkit.World, int, int, java.util.BitSet)}.
+     *
+     * @param world   the world to paste in
+     * @param batch   the blocks to write
+     * @param options how to paste the blocks
+     * @param stats   where to record how long it took, can be null
+     * @param pending the changes of the chunk's earlier batches, which are sent and cleared after its last batch. Can
+     *                only be null if the batch is the chunk's only one.
+     * @return how many blocks were written
+     */
+    public static int apply(World world, PasteBatch batch, PasteOptions options, PasteStats stats, BitSet pending) {
+        boolean defer = options.isDeferLighting();
+        int chunkX = batch.getChunkX(), chunkZ = batch.getChunkZ();
+        long start = System.nanoTime();
+        batch.applyMask(world, options.getMask());
+        int written = NMSManager.getNms().setBlocks(world, chunkX, chunkZ, batch.getBlocks(), false);
+        if (stats != null) {
+            stats.addWrite(System.nanoTime() - start, written);
+            start = System.nanoTime();
+        }
+        for (PasteBatch.PreparedTileEntity tileEntity : batch.getTileEntities()) {
+            if (!defer) {
+                NMSManager.getNms().setBlock(world, tileEntity.getX(), tileEntity.getY(), tileEntity.getZ(), tileEntity.getType(), tileEntity.getData(), false);
+            }
+            loadTileEntity(world, tileEntity);
+        }
+        if (stats != null) {
+            stats.addTileEntities(System.nanoTime() - start, defer ? 0 : batch.getTileEntities().size());
+        }
+        if (!defer) {
+            BitSet changed = batch.getChanged();
+            if (pending != null) {
+                pending.or(changed);
+                changed = pending;
+            }
+            if (!batch.isLastInChunk()) {
+                // the rest of the chunk is still coming, light and send it all at once
+                return written + batch.getTileEntities().size();
+            }
+            start = System.nanoTime();
+            NMSManager.getNms().relightChunk(world, chunkX, chunkZ);
+            long lit = System.nanoTime();
+            NMSManager.getNms().sendChanges(world, chunkX, chunkZ, changed);
+            if (pending != null) {
+                pending.clear();
+            }
+            if (stats != null) {
+                stats.addLighting(lit - start, 1);
+                stats.addSend(System.nanoTime() - lit);
             }
         }
+        return written + (defer ? 0 : batch.getTileEntities().size());
+    }
+
+    /**
+     * Loads the NBT of a TileEntity into the one at its location. The block should already be set.
+     *
+     * @param world    the world
+     * @param prepared the TileEntity's data
+     */
+    private static void loadTileEntity(World world, PasteBatch.PreparedTileEntity prepared) {
+        try {
+            ReflectionObject tileEntity = NMSManager.getNms().getTileEntity(world, prepared.getX(), prepared.getY(), prepared.getZ());
+            tileEntity.getMethodByClasses("a", NMSReflection.nbtTagCompound.getClazz()).invoke(prepared.getNbt());
+            NMSManager.getNms().setTileEntity(world, prepared.getX(), prepared.getY(), prepared.getZ(), tileEntity.getObject());
+        } catch (RuntimeException e) {
+            // no TileEntity there, or NMS failed, either way skip it rather than the rest of the batch
+            BGDCore.debug("Failed to load TileEntity at " + prepared.getX() + ", " + prepared.getY() + ", " + prepared.getZ() + ": " + e);
+        }
+    }
+
+    /**
+     * Gets a key unique to a chunk
+     *
+     * @param chunkX the chunk x
+     * @param chunkZ the chunk z
+     * @return the key
+     */
+    public static long getChunkKey(int chunkX, int chunkZ) {
+        return (long) chunkX << 32 | chunkZ & 0xFFFFFFFFL;
     }
 
     /**
@@ -0,0 +1,110 @@
+/*
+ * COPYRIGHT AND PERMISSION NOTICE
+ *
+ * Copyright (c) 2014, PaulBGD, <paul@paulbgd.me>.
+ *
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software for any purpose
+ * with or without fee is hereby granted, provided that the above copyright
+ * notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT OF THIRD PARTY RIGHTS. IN
+ * NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * Except as contained in this notice, the name of a copyright holder shall not
+ * be used in advertising or otherwise to promote the sale, use or other dealings
+ * in this Software without prior written authorization of the copyright holder.
+ */
+
+package me.paulbgd.bgdcore.blocks;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import org.bukkit.block.Block;
+
+/**
+ * A box of blocks, including both corners.
+ */
+@Getter
+@EqualsAndHashCode
+public class Cuboid {
+
+    private final int minX, minY, minZ;
+    private final int maxX, maxY, maxZ;
+
+    /**
+     * Creates a cuboid between two corners, in any order
+     */
+    public Cuboid(int x1, int y1, int z1, int x2, int y2, int z2) {
+        this.minX = Math.min(x1, x2);
+        this.minY = Math.min(y1, y2);
+        this.minZ = Math.min(z1, z2);
+        this.maxX = Math.max(x1, x2);
+        this.maxY = Math.max(y1, y2);
+        this.maxZ = Math.max(z1, z2);
+    }
+
+    /**
+     * Creates a cuboid between two blocks
+     *
+     * @param block1 point 1
+     * @param block2 point 2
+     */
+    public Cuboid(Block block1, Block block2) {
+        this(block1.getX(), block1.getY(), block1.getZ(), block2.getX(), block2.getY(), block2.getZ());
+        if (!block1.getWorld().equals(block2.getWorld())) {
+            throw new IllegalArgumentException("Two different worlds!");
+        }
+    }
+
+    public boolean contains(int x, int y, int z) {
+        return x >= minX && x <= maxX && y >= minY && y <= maxY && z >= minZ && z <= maxZ;
+    }
+
+    public int getWidth() {
+        return maxX - minX + 1;
+    }
+
+    public int getHeight() {
+        return maxY - minY + 1;
+    }
+
+    public int getLength() {
+        return maxZ - minZ + 1;
+    }
+
+    /**
+     * Gets how many blocks are in this cuboid
+     *
+     * @return the volume
+     */
+    public long getVolume() {
+        return (long) getWidth() * getHeight() * getLength();
+    }
+
+    /**
+     * Gets the index of a block in arrays covering this cuboid, such as the ones filled by
+     * {@link me.paulbgd.bgdcore.nms.BGDNMS#getIds(org.bukkit.World, Cuboid, short[])}. Goes along x, then z, then y,
+     * the same as chunks.
+     *
+     * @param x the x, inside of this cuboid
+     * @param y the y, inside of this cuboid
+     * @param z the z, inside of this cuboid
+     * @return the index
+     */
+    public int getIndex(int x, int y, int z) {
+        return ((y - minY) * getLength() + z - minZ) * getWidth() + x - minX;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("(%s, %s, %s) to (%s, %s, %s)", minX, minY, minZ, maxX, maxY, maxZ);
+    }
+
+}
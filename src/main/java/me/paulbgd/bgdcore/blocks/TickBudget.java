@@ -0,0 +1,140 @@
+/*
+ * COPYRIGHT AND PERMISSION NOTICE
+ *
+ * Copyright (c) 2014, PaulBGD, <paul@paulbgd.me>.
+ *
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software for any purpose
+ * with or without fee is hereby granted, provided that the above copyright
+ * notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT OF THIRD PARTY RIGHTS. IN
+ * NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * Except as contained in this notice, the name of a copyright holder shall not
+ * be used in advertising or otherwise to promote the sale, use or other dealings
+ * in this Software without prior written authorization of the copyright holder.
+ */
+
+package me.paulbgd.bgdcore.blocks;
+
+import lombok.Getter;
+import me.paulbgd.bgdcore.BGDCore;
+import me.paulbgd.bgdcore.configuration.CoreConfiguration;
+import org.bukkit.scheduler.BukkitRunnable;
+
+/**
+ * A nanosecond time budget that is handed out every tick. The budget shrinks when the server falls behind and slowly grows
+ * back while it keeps up, so that everything sharing it can never add up to a lag spike.
+ */
+public class TickBudget extends BukkitRunnable {
+
+    /**
+     * How long a tick should take when the server is running at 20 TPS.
+     */
+    public static final long TICK_NANOS = 50000000l;
+
+    private static TickBudget global;
+
+    /**
+     * The averaged duration of the last ticks
+     */
+    @Getter
+    private long tickNanos = TICK_NANOS;
+    /**
+     * How much time is handed out every tick
+     */
+    @Getter
+    private long budgetNanos;
+    /**
+     * How much time is left in this tick
+     */
+    @Getter
+    private long remainingNanos;
+    private long lastTick = 0;
+
+    private TickBudget() {
+        this.budgetNanos = getMaximum();
+        this.remainingNanos = budgetNanos;
+    }
+
+    /**
+     * Gets the budget shared by every paster, starting it if needed.
+     *
+     * @return the global budget
+     */
+    public static synchronized TickBudget getGlobal() {
+        if (global == null) {
+            global = new TickBudget();
+            global.runTaskTimer(BGDCore.getPlugin(BGDCore.class), 0, 1);
+        }
+        return global;
+    }
+
+    @Override
+    public void run() {
+        long now = System.nanoTime();
+        if (lastTick != 0) {
+            // smooth it out a bit, a single slow tick shouldn't stop everything
+            tickNanos = (tickNanos * 9 + (now - lastTick)) / 10;
+        }
+        lastTick = now;
+
+        long minimum = getMinimum(), maximum = getMaximum();
+        if (tickNanos > TICK_NANOS + TICK_NANOS / 20) {
+            // we're behind, back off quickly
+            budgetNanos /= 2;
+        } else {
+            // keeping up, so slowly give more time back
+            budgetNanos += (maximum - minimum) / 40 + 1;
+        }
+        if (budgetNanos < minimum) {
+            budgetNanos = minimum;
+        } else if (budgetNanos > maximum) {
+            budgetNanos = maximum;
+        }
+        remainingNanos = budgetNanos;
+    }
+
+    /**
+     * Checks if there's any time left to use in this tick
+     *
+     * @return true if there is time left
+     */
+    public boolean hasRemaining() {
+        return remainingNanos > 0;
+    }
+
+    /**
+     * Takes time away from this tick's budget
+     *
+     * @param nanos the time used
+     */
+    public void consume(long nanos) {
+        remainingNanos -= nanos;
+    }
+
+    /**
+     * Gets the estimated ticks per second, using the averaged tick duration
+     *
+     * @return the TPS, at most 20
+     */
+    public double getTps() {
+        return Math.min(20.0, 1000000000.0 / tickNanos);
+    }
+
+    private static long getMinimum() {
+        return (long) (CoreConfiguration.pasteMinTickMillis * 1000000);
+    }
+
+    private static long getMaximum() {
+        return Math.max(getMinimum(), (long) (CoreConfiguration.pasteMaxTickMillis * 1000000));
+    }
+
+}
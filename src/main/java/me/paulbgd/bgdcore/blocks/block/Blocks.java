@@ -35,13 +35,20 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import lombok.AccessLevel;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
 import me.paulbgd.bgdcore.BGDCore;
 import me.paulbgd.bgdcore.blocks.BlocksAPI;
+import me.paulbgd.bgdcore.blocks.Cuboid;
+import me.paulbgd.bgdcore.blocks.capture.RegionFingerprint;
 import me.paulbgd.bgdcore.blocks.block.data.BlockData;
 import me.paulbgd.bgdcore.blocks.block.loader.BlocksLoader;
 import me.paulbgd.bgdcore.blocks.block.paster.BlockPaster;
+import me.paulbgd.bgdcore.blocks.block.paster.OptionsPaster;
+import me.paulbgd.bgdcore.blocks.block.paster.PasteOptions;
 import org.apache.commons.io.IOUtils;
 import org.bukkit.Bukkit;
 import org.bukkit.World;
@@ -62,6 +69,25 @@ public class Blocks extends ArrayList<Block> {
     private int minX;
     private int maxX;
 
+    /**
+     * If air was left out of these blocks. When pasted with air, the whole {@link #region} is cleared first.
+     */
+    private boolean sparse = false;
+    /**
+     * The region these blocks were captured from, relative to where they were captured from. Can be null.
+     */
+    private Cuboid region = null;
+
+    /**
+     * Hashes of these blocks, by how they line up with sections. Thrown away once the list's modCount has moved on from
+     * {@link #fingerprintsVersion}, so every change to the list throws them away without add having to lock.
+     */
+    @Getter(AccessLevel.NONE)
+    private final transient Map<Integer, RegionFingerprint> fingerprints = new HashMap<>();
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private transient int fingerprintsVersion = 0;
+
     @Deprecated
     public Blocks(org.bukkit.block.Block start, List<org.bukkit.block.Block> blocks) {
         this();
@@ -137,23 +163,80 @@ public class Blocks extends ArrayList<Block> {
         this.addAll(blocks);
     }
 
+    /**
+     * Gets the region these blocks were captured from, as if they were pasted at a location
+     *
+     * @param x the x being pasted at
+     * @param y the y being pasted at
+     * @param z the z being pasted at
+     * @return the region, or null if it isn't known
+     */
+    public Cuboid getRegion(int x, int y, int z) {
+        if (region == null) {
+            return null;
+        }
+        return new Cuboid(region.getMinX() + x, region.getMinY() + y, region.getMinZ() + z, region.getMaxX() + x, region.getMaxY() + y, region.getMaxZ() + z);
+    }
+
+    /**
+     * Gets the section hashes of these blocks as if they were pasted at a location. They're cached, so only worked out
+     * once for every way the blocks can line up with sections.
+     *
+     * @param x the x being pasted at
+     * @param y the y being pasted at
+     * @param z the z being pasted at
+     * @return the hashes
+     */
+    public RegionFingerprint getFingerprint(int x, int y, int z) {
+        int alignment = (x & 15) << 8 | (y & 15) << 4 | z & 15;
+        RegionFingerprint fingerprint;
+        synchronized (fingerprints) {
+            if (fingerprintsVersion != modCount) {
+                fingerprints.clear();
+                fingerprintsVersion = modCount;
+            }
+            fingerprint = fingerprints.get(alignment);
+            if (fingerprint == null) {
+                fingerprint = RegionFingerprint.of(this, x & 15, y & 15, z & 15);
+                fingerprints.put(alignment, fingerprint);
+            }
+        }
+        return fingerprint.translate(x >> 4, y >> 4, z >> 4);
+    }
+
+    public void setSparse(boolean sparse) {
+        this.sparse = sparse;
+        modCount++;
+    }
+
+    public void setRegion(Cuboid region) {
+        this.region = region;
+        modCount++;
+    }
+
+    @Override
+    public Block set(int index, Block block) {
+        // not a structural change to ArrayList, but it changes the fingerprints
+        modCount++;
+        return super.set(index, block);
+    }
+
     @Override
     public boolean add(Block block) {
         BlockPosition position = block.getPosition();
-        if (position.getRelativeY() < minY) {
-            this.minY = position.getRelativeY();
-        } else if (position.getRelativeY() > maxY) {
-            this.maxY = position.getRelativeY();
-        }
-        if (position.getRelativeZ() < minZ) {
-            this.minZ = position.getRelativeZ();
-        } else if (position.getRelativeZ() > maxZ) {
-            this.maxZ = position.getRelativeZ();
-        }
-        if (position.getRelativeX() < minX) {
-            this.minX = position.getRelativeX();
-        } else if (position.getRelativeX() > maxX) {
-            this.maxX = position.getRelativeX();
+        int x = position.getRelativeX(), y = position.getRelativeY(), z = position.getRelativeZ();
+        if (isEmpty()) {
+            // the first block is the whole box
+            this.minX = this.maxX = x;
+            this.minY = this.maxY = y;
+            this.minZ = this.maxZ = z;
+        } else {
+            this.minX = Math.min(minX, x);
+            this.minY = Math.min(minY, y);
+            this.minZ = Math.min(minZ, z);
+            this.maxX = Math.max(maxX, x);
+            this.maxY = Math.max(maxY, y);
+            this.maxZ = Math.max(maxZ, z);
         }
         return super.add(block);
     }
@@ -191,9 +274,19 @@ public class Blocks extends ArrayList<Block> {
     }
 
     public void paste(org.bukkit.block.Block location, BlockPaster paster, CommandSender sender, boolean air, boolean biomes) {
-        paster.handle(this, location, sender, air);
+        this.paste(location, paster, sender, new PasteOptions().setAir(air).setBiomes(biomes));
+    }
+
+    public void paste(org.bukkit.block.Block location, BlockPaster paster, CommandSender sender, PasteOptions options) {
+        if (paster instanceof OptionsPaster) {
+            ((OptionsPaster) paster).handle(this, location, sender, options);
+        } else if (options.isSimple()) {
+            paster.handle(this, location, sender, options.isAir());
+        } else {
+            throw new IllegalArgumentException(paster.getClass().getSimpleName() + " doesn't support paste options, only air and biomes!");
+        }
 
-        if (biomes && !this.biomes.isEmpty()) {
+        if (options.isBiomes() && !this.biomes.isEmpty()) {
             // let's set some biomes!
             World world = location.getWorld();
             int x = location.getX(), z = location.getZ();
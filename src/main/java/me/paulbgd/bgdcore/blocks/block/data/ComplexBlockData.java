@@ -54,12 +54,12 @@ public class ComplexBlockData extends BlockData {
      * @param data       block data
      */
     public ComplexBlockData(ReflectionObject tileEntity, int data) {
-        super((Integer) NMSReflection.craftMagicNumbers.getStaticMethod("getId", NMSReflection.nmsBlock.getClazz()).invoke(tileEntity.getMethod("q").invoke()).getObject(), (short) data);
+        super((Integer) NMSReflection.craftMagicNumbers.getStaticMethod("getId", new Class[]{NMSReflection.nmsBlock.getClazz()}).invoke(NMSReflection.tileEntity.getMethod(tileEntity.getObject(), "q", new Class[0]).invoke().getObject()).getObject(), (short) data);
         this.data = new JSONObject();
         this.data.put("e", Short.toString(this.blockData));
 
         ReflectionObject nbtTagCompound = NMSReflection.nbtTagCompound.newInstance();
-        tileEntity.getMethod("b", nbtTagCompound.getObject().getClass()).invoke(nbtTagCompound.getObject());
+        NMSReflection.tileEntity.getMethod(tileEntity.getObject(), "b", new Class[]{NMSReflection.nbtTagCompound.getClazz()}).invoke(nbtTagCompound.getObject());
         JSONObject nbtData = NMSManager.getNms().nbtToJSON(nbtTagCompound.getObject());
         this.data.put("n", nbtData);
     }
@@ -25,7 +25,6 @@
 package me.paulbgd.bgdcore.blocks.block.loader;
 
 import com.google.common.base.Joiner;
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -34,6 +33,9 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import me.paulbgd.bgdcore.blocks.Cuboid;
 import me.paulbgd.bgdcore.blocks.block.Block;
 import me.paulbgd.bgdcore.blocks.block.BlockPosition;
 import me.paulbgd.bgdcore.blocks.block.Blocks;
@@ -50,7 +52,7 @@ import org.bukkit.block.Biome;
 /**
  * The official loader and saver of the Blocks format.
  */
-public class BlocksFormat implements BlocksLoader {
+public class BlocksFormat implements StreamingBlocksLoader {
 
     /**
      * The chunk size to save in each file. Used like a buffer.
@@ -106,9 +108,15 @@ public class BlocksFormat implements BlocksLoader {
 
         HashMap<Biome, List<String>> biomes = new HashMap<>();
         for (Map.Entry<InputStream, String> file : files.entrySet()) {
-            JSONObject parse = (JSONObject) JSONValue.parse(inputStream);
+            JSONObject parse = (JSONObject) JSONValue.parse(file.getKey());
             if (parse == null) {
                 continue;
+            } else if (file.getValue().equals("m")) {
+                // sparse blocks, with the region they were captured from
+                blocks.setSparse(Boolean.TRUE.equals(parse.get("s")));
+                String[] region = ((String) parse.get("r")).split("!");
+                blocks.setRegion(new Cuboid(Integer.valueOf(region[0]), Integer.valueOf(region[1]), Integer.valueOf(region[2]), Integer.valueOf(region[3]), Integer.valueOf(region[4]), Integer.valueOf(region[5])));
+                continue;
             }
             for (Map.Entry<String, Object> entry : parse.entrySet()) {
                 if (file.getValue().equals("b")) {
@@ -153,31 +161,98 @@ public class BlocksFormat implements BlocksLoader {
 
     @Override
     public void save(Blocks blocks, OutputStream outputStream) throws IOException {
-        List<Block> allBlocks = new ArrayList<>(blocks);
-        int i = 0;
-        int j = 0;
-        HashMap<InputStream, String> outputStreams = new HashMap<>();
-        List<Block> toSave = new ArrayList<>();
-        while (!allBlocks.isEmpty()) {
-            if (++j >= chunkSize) {
-                outputStreams.put(new ByteArrayInputStream(saveChunk(toSave)), Integer.toString(i));
-                toSave.clear();
-                i++;
-                j = 0;
+        BlocksWriter writer = newWriter(outputStream);
+        if (blocks.isSparse() && blocks.getRegion() != null) {
+            writer.writeRegion(blocks.getRegion());
+        }
+        for (Block block : blocks) {
+            writer.write(block);
+        }
+        for (Map.Entry<Biome, List<String>> entry : blocks.getBiomes().entrySet()) {
+            for (String column : entry.getValue()) {
+                writer.writeBiome(entry.getKey(), column);
             }
-            toSave.add(allBlocks.remove(0));
         }
-        // save last chunk, if there's a few leftovers
-        outputStreams.put(new ByteArrayInputStream(saveChunk(toSave)), Integer.toString(i));
-        // save biomes
-        if (blocks.getBiomes().size() > 0) {
-            JSONObject biomes = new JSONObject();
-            for (Map.Entry<Biome, List<String>> entry : blocks.getBiomes().entrySet()) {
-                biomes.put(entry.getKey().name(), entry.getValue());
+        writer.close();
+    }
+
+    @Override
+    public BlocksWriter newWriter(OutputStream outputStream) throws IOException {
+        return new Writer(outputStream);
+    }
+
+    /**
+     * Writes each chunk of blocks into the zip as soon as it's full.
+     */
+    private static class Writer implements BlocksWriter {
+
+        private final ZipOutputStream zipOutputStream;
+        private final List<Block> toSave = new ArrayList<>();
+        private final HashMap<Biome, List<String>> biomes = new HashMap<>();
+        private int entry = 0;
+        private Cuboid region = null;
+
+        private Writer(OutputStream outputStream) {
+            this.zipOutputStream = new ZipOutputStream(outputStream);
+        }
+
+        @Override
+        public void write(Block block) throws IOException {
+            toSave.add(block);
+            if (toSave.size() >= chunkSize) {
+                flush();
             }
-            outputStreams.put(new ByteArrayInputStream(biomes.toJSONString().getBytes("UTF-8")), "b");
         }
 
-        ZipUtils.writeZip(outputStreams, outputStream);
+        @Override
+        public void writeBiome(Biome biome, String column) {
+            List<String> columns = biomes.get(biome);
+            if (columns == null) {
+                columns = new ArrayList<>();
+                biomes.put(biome, columns);
+            }
+            columns.add(column);
+        }
+
+        @Override
+        public void writeRegion(Cuboid region) {
+            this.region = region;
+        }
+
+        private void flush() throws IOException {
+            if (toSave.isEmpty()) {
+                return;
+            }
+            writeEntry(Integer.toString(entry++), saveChunk(toSave));
+            toSave.clear();
+        }
+
+        private void writeEntry(String name, byte[] bytes) throws IOException {
+            zipOutputStream.putNextEntry(new ZipEntry(name));
+            zipOutputStream.write(bytes);
+            zipOutputStream.closeEntry();
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+            // save biomes
+            if (biomes.size() > 0) {
+                JSONObject json = new JSONObject();
+                for (Map.Entry<Biome, List<String>> entry : biomes.entrySet()) {
+                    json.put(entry.getKey().name(), entry.getValue());
+                }
+                writeEntry("b", json.toJSONString().getBytes("UTF-8"));
+            }
+            if (region != null) {
+                JSONObject json = new JSONObject();
+                json.put("s", true);
+                json.put("r", Joiner.on('!').join(new Object[]{region.getMinX(), region.getMinY(), region.getMinZ(), region.getMaxX(), region.getMaxY(), region.getMaxZ()}));
+                writeEntry("m", json.toJSONString().getBytes("UTF-8"));
+            }
+            zipOutputStream.close();
+        }
+
     }
+
 }
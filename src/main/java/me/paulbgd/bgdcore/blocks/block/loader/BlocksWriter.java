@@ -0,0 +1,72 @@
+/*
+ * COPYRIGHT AND PERMISSION NOTICE
+ *
+ * Copyright (c) 2014, PaulBGD, <paul@paulbgd.me>.
+ *
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software for any purpose
+ * with or without fee is hereby granted, provided that the above copyright
+ * notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT OF THIRD PARTY RIGHTS. IN
+ * NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * Except as contained in this notice, the name of a copyright holder shall not
+ * be used in advertising or otherwise to promote the sale, use or other dealings
+ * in this Software without prior written authorization of the copyright holder.
+ */
+
+package me.paulbgd.bgdcore.blocks.block.loader;
+
+import java.io.Closeable;
+import java.io.IOException;
+import me.paulbgd.bgdcore.blocks.Cuboid;
+import me.paulbgd.bgdcore.blocks.block.Block;
+import org.bukkit.block.Biome;
+
+/**
+ * Writes blocks to a stream as they come, without needing them all in memory.
+ */
+public interface BlocksWriter extends Closeable {
+
+    /**
+     * Writes a block
+     *
+     * @param block the block
+     * @throws IOException if there's an error writing
+     */
+    public void write(Block block) throws IOException;
+
+    /**
+     * Writes the biome of a column
+     *
+     * @param biome  the biome
+     * @param column the column, as relativeX!relativeZ
+     * @throws IOException if there's an error writing
+     */
+    public void writeBiome(Biome biome, String column) throws IOException;
+
+    /**
+     * Marks the blocks as sparse, meaning their air was left out of a region. The region is cleared when they're pasted
+     * with air.
+     *
+     * @param region the region, relative to where the blocks were captured from
+     * @throws IOException if there's an error writing
+     */
+    public void writeRegion(Cuboid region) throws IOException;
+
+    /**
+     * Finishes writing, closing the stream
+     *
+     * @throws IOException if there's an error writing
+     */
+    @Override
+    public void close() throws IOException;
+
+}
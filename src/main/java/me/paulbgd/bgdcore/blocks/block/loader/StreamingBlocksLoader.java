@@ -0,0 +1,44 @@
+/*
+ * COPYRIGHT AND PERMISSION NOTICE
+ *
+ * Copyright (c) 2014, PaulBGD, <paul@paulbgd.me>.
+ *
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software for any purpose
+ * with or without fee is hereby granted, provided that the above copyright
+ * notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT OF THIRD PARTY RIGHTS. IN
+ * NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * Except as contained in this notice, the name of a copyright holder shall not
+ * be used in advertising or otherwise to promote the sale, use or other dealings
+ * in this Software without prior written authorization of the copyright holder.
+ */
+
+package me.paulbgd.bgdcore.blocks.block.loader;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * A BlocksLoader that can also save blocks a few at a time.
+ */
+public interface StreamingBlocksLoader extends BlocksLoader {
+
+    /**
+     * Starts writing blocks to a said OutputStream.
+     *
+     * @param outputStream the output stream to save to
+     * @return the writer, which must be closed once done
+     * @throws java.io.IOException if there's an error starting
+     */
+    public BlocksWriter newWriter(OutputStream outputStream) throws IOException;
+
+}
@@ -24,16 +24,21 @@
 
 package me.paulbgd.bgdcore.blocks.block.paster;
 
-import com.google.common.collect.Lists;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
-import java.util.List;
-import lombok.Data;
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 import me.paulbgd.bgdcore.BGDCore;
 import me.paulbgd.bgdcore.blocks.BlockUtils;
+import me.paulbgd.bgdcore.blocks.TickBudget;
 import me.paulbgd.bgdcore.blocks.block.Blocks;
+import me.paulbgd.bgdcore.configuration.CoreConfiguration;
+import me.paulbgd.bgdcore.nms.NMSManager;
 import org.bukkit.ChatColor;
+import org.bukkit.World;
 import org.bukkit.block.Block;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
@@ -41,68 +46,229 @@ import org.bukkit.scheduler.BukkitRunnable;
 
 /**
  * Pastes blocks "async", or in chunks. Can be modified by being extended.
+ * <p/>
+ * Every run pastes as many blocks as the global {@link me.paulbgd.bgdcore.blocks.TickBudget} allows, so cheap blocks
+ * go fast and expensive ones don't lag the server. Blocks are pasted a chunk at a time, see {@link PastePlan}. Pastes
+ * are planned and batched on worker threads, so the main thread only has to write them.
+ * <p/>
+ * Any number of pastes can be queued with {@link #submit(String, Blocks, Block, PasteOptions)}. The most important
+ * ones are always worked on first, and pastes of the same {@link PastePriority} take turns so that a big one can't
+ * hold up the rest.
  */
-public class AsyncPaster extends BukkitRunnable implements BlockPaster {
+public class AsyncPaster extends BukkitRunnable implements OptionsPaster {
 
-    private final List<QueueItem> queue = new ArrayList<>();
+    private static final AtomicInteger names = new AtomicInteger();
+
+    private final Map<PastePriority, ArrayDeque<PasteJob>> queues = new EnumMap<>(PastePriority.class);
 
     protected long speed = 1l;
-    protected int chunkSize = 1000;
+    /**
+     * The most blocks in a batch, and so pasted between checks of the budget. Every batch writes, relights and sends
+     * its chunk once.
+     */
+    protected int chunkSize = 4096;
+    /**
+     * How many batches each paste can have prepared ahead of the main thread
+     */
+    protected int readyBatches = 16;
 
     public AsyncPaster(long speed) {
         this.speed = speed;
-        this.runTaskTimer(BGDCore.getPlugin(BGDCore.class), speed, speed);
+        start();
     }
 
     public AsyncPaster() {
+        start();
+    }
+
+    private void start() {
+        for (PastePriority priority : PastePriority.values()) {
+            queues.put(priority, new ArrayDeque<PasteJob>());
+        }
+        TickBudget.getGlobal();
         this.runTaskTimer(BGDCore.getPlugin(BGDCore.class), speed, speed);
     }
 
     @Override
     public void handle(Blocks blocks, Block location, CommandSender paster, boolean air) {
+        handle(blocks, location, paster, new PasteOptions().setAir(air));
+    }
+
+    @Override
+    public void handle(Blocks blocks, Block location, final CommandSender paster, PasteOptions options) {
         paster.sendMessage(ChatColor.AQUA + String.format("Proccessing %s blocks..", blocks.size()));
-        List<me.paulbgd.bgdcore.blocks.block.Block> sorted = new ArrayList<>(blocks);
-        Collections.sort(sorted, new Comparator<me.paulbgd.bgdcore.blocks.block.Block>() {
+        submit(paster.getName() + "-" + names.incrementAndGet(), blocks, location, options).addListener(new Runnable() {
             @Override
-            public int compare(me.paulbgd.bgdcore.blocks.block.Block o1, me.paulbgd.bgdcore.blocks.block.Block o2) {
-                return Integer.compare(o1.getPosition().getRelativeY(), o2.getPosition().getRelativeY());
+            public void run() {
+                if (!(paster instanceof Player) || ((Player) paster).isOnline()) {
+                    paster.sendMessage(ChatColor.GREEN + "Pasted!");
+                }
             }
         });
-        List<List<me.paulbgd.bgdcore.blocks.block.Block>> toProcess = Lists.partition(sorted, chunkSize);
-        for (int i = 0; i < toProcess.size(); i++) {
-            queue.add(new QueueItem(toProcess.get(i), location, air, paster, i, toProcess.size() - 1));
+    }
+
+    /**
+     * Queues blocks to be pasted. Must be called on the main thread.
+     *
+     * @param name     what to call the paste, used for debugging
+     * @param blocks   the blocks to paste
+     * @param location where to paste them
+     * @param options  how to paste them
+     * @return the paste, which can be used to follow or cancel it
+     */
+    public PasteJob submit(String name, Blocks blocks, Block location, PasteOptions options) {
+        return submit(new PasteJob(this, name, blocks, location, options, chunkSize, readyBatches));
+    }
+
+    PasteJob submit(final PasteJob job) {
+        queues.get(job.getOptions().getPriority()).addLast(job);
+        new BukkitRunnable() {
+            @Override
+            public void run() {
+                job.prepare();
+            }
+        }.runTaskAsynchronously(BGDCore.getPlugin(BGDCore.class));
+        return job;
+    }
+
+    /**
+     * Gets how many pastes are waiting or running
+     *
+     * @return the amount of pastes
+     */
+    public int getQueued() {
+        int queued = 0;
+        for (ArrayDeque<PasteJob> queue : queues.values()) {
+            queued += queue.size();
         }
+        return queued;
     }
 
     @Override
     public void run() {
-        if (queue.isEmpty()) {
-            return;
+        TickBudget budget = TickBudget.getGlobal();
+        int pasted = 0, minimum = CoreConfiguration.pasteMinBlocksPerTick, maximum = CoreConfiguration.pasteMaxBlocksPerTick;
+        // jobs that relit as many chunks as they're allowed to this tick
+        Set<PasteJob> lit = new HashSet<>();
+        for (PastePriority priority : PastePriority.values()) {
+            ArrayDeque<PasteJob> queue = queues.get(priority);
+            // how many jobs in a row had nothing to do, once it's all of them move onto the next priority
+            int idle = 0;
+            while (!queue.isEmpty() && idle < queue.size()) {
+                PasteJob job = queue.peekFirst();
+                if (job.isPasted()) {
+                    if (lit.contains(job) || !relight(job, budget)) {
+                        if (!budget.hasRemaining()) {
+                            return;
+                        }
+                        // only this job is out of lighting for the tick, everyone else can keep going
+                        lit.add(job);
+                        queue.addLast(queue.pollFirst());
+                        idle++;
+                        continue;
+                    }
+                    queue.pollFirst();
+                    BGDCore.debug("Pasted " + job + ": " + job.getStats());
+                    job.complete();
+                    idle = 0;
+                    continue;
+                }
+                boolean finishColumn = job.getOptions().isCompleteColumns() && job.isMidChunk();
+                if (!finishColumn && (pasted >= maximum || (pasted >= minimum && !budget.hasRemaining()))) {
+                    return;
+                }
+                PasteBatch batch = job.isPaused() ? null : job.poll();
+                if (batch == null) {
+                    // paused or still being prepared, even a column has to wait for that
+                    queue.addLast(queue.pollFirst());
+                    idle++;
+                    continue;
+                }
+
+                long start = System.nanoTime();
+                try {
+                    batch.applyMask(job.getLocation().getWorld(), job.getOptions().getMask());
+                    if (job.getJournal() != null) {
+                        job.getJournal().record(job.getLocation().getWorld(), batch);
+                    }
+                    BlockUtils.apply(job.getLocation().getWorld(), batch, job.getOptions(), job.getStats(), job.getPending());
+                } catch (RuntimeException e) {
+                    // the batch is lost, but the job and everyone queued behind it can still finish
+                    BGDCore.getLogging().severe("Failed to paste a batch of " + job + " in chunk " + batch.getChunkX() + ", " + batch.getChunkZ() + "!");
+                    e.printStackTrace();
+                    if (batch.isLastInChunk()) {
+                        job.getPending().clear();
+                    }
+                }
+                if (job.getOptions().isDeferLighting()) {
+                    job.getDirty().add(BlockUtils.getChunkKey(batch.getChunkX(), batch.getChunkZ()));
+                }
+                job.applied(batch);
+                budget.consume(System.nanoTime() - start);
+                pasted += batch.getSize();
+                idle = 0;
+
+                onPaste(job);
+
+                // let the next job have a turn, unless this one has a column to finish
+                if (!job.isPasted() && !(job.getOptions().isCompleteColumns() && job.isMidChunk())) {
+                    queue.addLast(queue.pollFirst());
+                }
+            }
         }
-        QueueItem item = queue.remove(0);
-        BlockUtils.paste(item.getBlocks(), item.getLocation(), item.air);
-        onPaste(item);
-        if (item.getPosition() == item.totalSize && (!(item.getPaster() instanceof Player) || ((Player) item.getPaster()).isOnline())) {
-            item.getPaster().sendMessage(ChatColor.GREEN + "Pasted!");
+    }
+
+    /**
+     * Relights and sends the chunks of a paste that deferred its lighting, up to its
+     * {@link PasteOptions#getLightingChunksPerTick()} or until the budget runs out.
+     *
+     * @return true if every chunk is done
+     */
+    private boolean relight(PasteJob job, TickBudget budget) {
+        if (!job.getOptions().isDeferLighting()) {
+            return true;
         }
+        World world = job.getLocation().getWorld();
+        int limit = job.getOptions().getLightingChunksPerTick(), relit = 0;
+        Iterator<Long> iterator = job.getDirty().iterator();
+        while (iterator.hasNext()) {
+            if ((limit > 0 && relit >= limit) || (relit > 0 && !budget.hasRemaining())) {
+                return false;
+            }
+            long key = iterator.next();
+            iterator.remove();
+            int chunkX = (int) (key >> 32), chunkZ = (int) key;
+
+            long start = System.nanoTime();
+            NMSManager.getNms().relightChunk(world, chunkX, chunkZ);
+            long lit = System.nanoTime();
+            world.refreshChunk(chunkX, chunkZ);
+            long sent = System.nanoTime();
+
+            job.getStats().addLighting(lit - start, 1);
+            job.getStats().addSend(sent - lit);
+            budget.consume(sent - start);
+            relit++;
+        }
+        return true;
     }
 
-    protected void onPaste(QueueItem queueItem) {
+    protected void onPaste(PasteJob job) {
 
     }
 
+    /**
+     * Stops this paster, cancelling everything still queued
+     */
     public void finish() {
         this.cancel();
-    }
-
-    @Data
-    public class QueueItem {
-        private final List<me.paulbgd.bgdcore.blocks.block.Block> blocks;
-        private final Block location;
-        private final boolean air;
-        private final CommandSender paster;
-        private final double position;
-        private final double totalSize;
+        for (ArrayDeque<PasteJob> queue : queues.values()) {
+            PasteJob job;
+            while ((job = queue.pollFirst()) != null) {
+                job.cancel(false);
+                job.complete();
+            }
+        }
     }
 
 }
@@ -0,0 +1,257 @@
+/*
+ * COPYRIGHT AND PERMISSION NOTICE
+ *
+ * Copyright (c) 2014, PaulBGD, <paul@paulbgd.me>.
+ *
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software for any purpose
+ * with or without fee is hereby granted, provided that the above copyright
+ * notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT OF THIRD PARTY RIGHTS. IN
+ * NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * Except as contained in this notice, the name of a copyright holder shall not
+ * be used in advertising or otherwise to promote the sale, use or other dealings
+ * in this Software without prior written authorization of the copyright holder.
+ */
+
+package me.paulbgd.bgdcore.blocks.block.paster;
+
+import java.util.HashSet;
+import java.util.Set;
+import me.paulbgd.bgdcore.blocks.Cuboid;
+import me.paulbgd.bgdcore.blocks.capture.RegionFingerprint;
+import me.paulbgd.bgdcore.nms.PackedChunk;
+
+/**
+ * The masks most pastes need, and ways to combine them.
+ */
+public class Masks {
+
+    /**
+     * Pastes everything
+     */
+    public static final PasteMask ALL = new PasteMask() {
+        @Override
+        public boolean test(int x, int y, int z, int packed, int existing) {
+            return true;
+        }
+    };
+
+    /**
+     * Only pastes blocks that aren't air
+     *
+     * @return the mask
+     */
+    public static PasteMask nonAir() {
+        return not(ids(0));
+    }
+
+    /**
+     * Only pastes blocks with one of the ids
+     *
+     * @param ids the ids to paste
+     * @return the mask
+     */
+    public static PasteMask ids(int... ids) {
+        final boolean[] allowed = toTable(ids);
+        return new PasteMask() {
+            @Override
+            public boolean test(int x, int y, int z, int packed, int existing) {
+                return allowed[PackedChunk.getId(packed)];
+            }
+        };
+    }
+
+    /**
+     * Only pastes blocks with one of the data values, of any id
+     *
+     * @param data the data values to paste
+     * @return the mask
+     */
+    public static PasteMask data(int... data) {
+        int values = 0;
+        for (int value : data) {
+            values |= 1 << (value & 0xF);
+        }
+        final int allowed = values;
+        return new PasteMask() {
+            @Override
+            public boolean test(int x, int y, int z, int packed, int existing) {
+                return (allowed & 1 << PackedChunk.getData(packed)) != 0;
+            }
+        };
+    }
+
+    /**
+     * Only pastes one exact block
+     *
+     * @param id   the block id
+     * @param data the block data
+     * @return the mask
+     */
+    public static PasteMask block(int id, int data) {
+        final int wanted = PackedChunk.pack(id, data);
+        return new PasteMask() {
+            @Override
+            public boolean test(int x, int y, int z, int packed, int existing) {
+                return packed == wanted;
+            }
+        };
+    }
+
+    /**
+     * Only pastes blocks inside of a region
+     *
+     * @param region the region, in world coordinates
+     * @return the mask
+     */
+    public static PasteMask region(final Cuboid region) {
+        return new PasteMask() {
+            @Override
+            public boolean test(int x, int y, int z, int packed, int existing) {
+                return region.contains(x, y, z);
+            }
+        };
+    }
+
+    /**
+     * Only pastes blocks inside of some sections, such as the ones found to be different by
+     * {@link me.paulbgd.bgdcore.blocks.capture.RegionFingerprint#diff(me.paulbgd.bgdcore.blocks.capture.RegionFingerprint)}
+     *
+     * @param sections the keys of the sections, see {@link RegionFingerprint#getSectionKey(int, int, int)}
+     * @return the mask
+     */
+    public static PasteMask sections(Set<Long> sections) {
+        final Set<Long> keys = new HashSet<>(sections);
+        return new PasteMask() {
+            @Override
+            public boolean test(int x, int y, int z, int packed, int existing) {
+                return keys.contains(RegionFingerprint.getSectionKey(x >> 4, y >> 4, z >> 4));
+            }
+        };
+    }
+
+    /**
+     * Only pastes over blocks in the world with one of the ids, for example to only replace stone
+     *
+     * @param ids the ids that can be replaced
+     * @return the mask
+     */
+    public static PasteMask replacing(int... ids) {
+        final boolean[] allowed = toTable(ids);
+        return new WorldMask() {
+            @Override
+            public boolean test(int x, int y, int z, int packed, int existing) {
+                return allowed[PackedChunk.getId(existing)];
+            }
+        };
+    }
+
+    /**
+     * Never pastes over blocks in the world with one of the ids, for example to protect bedrock
+     *
+     * @param ids the ids that are protected
+     * @return the mask
+     */
+    public static PasteMask protecting(int... ids) {
+        return not(replacing(ids));
+    }
+
+    /**
+     * Only pastes where all of the masks pass
+     *
+     * @param masks the masks
+     * @return the mask
+     */
+    public static PasteMask and(final PasteMask... masks) {
+        return new CombinedMask(masks) {
+            @Override
+            public boolean test(int x, int y, int z, int packed, int existing) {
+                for (PasteMask mask : masks) {
+                    if (!mask.test(x, y, z, packed, existing)) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Only pastes where any of the masks pass
+     *
+     * @param masks the masks
+     * @return the mask
+     */
+    public static PasteMask or(final PasteMask... masks) {
+        return new CombinedMask(masks) {
+            @Override
+            public boolean test(int x, int y, int z, int packed, int existing) {
+                for (PasteMask mask : masks) {
+                    if (mask.test(x, y, z, packed, existing)) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Only pastes where the mask fails
+     *
+     * @param mask the mask
+     * @return the mask
+     */
+    public static PasteMask not(final PasteMask mask) {
+        return new CombinedMask(mask) {
+            @Override
+            public boolean test(int x, int y, int z, int packed, int existing) {
+                return !mask.test(x, y, z, packed, existing);
+            }
+        };
+    }
+
+    private static boolean[] toTable(int... ids) {
+        boolean[] table = new boolean[4096];
+        for (int id : ids) {
+            if (id >= 0 && id < table.length) {
+                table[id] = true;
+            }
+        }
+        return table;
+    }
+
+    private static abstract class WorldMask extends PasteMask {
+        @Override
+        public boolean isWorldDependent() {
+            return true;
+        }
+    }
+
+    private static abstract class CombinedMask extends PasteMask {
+        private final boolean worldDependent;
+
+        private CombinedMask(PasteMask... masks) {
+            boolean worldDependent = false;
+            for (PasteMask mask : masks) {
+                worldDependent |= mask.isWorldDependent();
+            }
+            this.worldDependent = worldDependent;
+        }
+
+        @Override
+        public boolean isWorldDependent() {
+            return worldDependent;
+        }
+    }
+
+}
@@ -0,0 +1,49 @@
+/*
+ * COPYRIGHT AND PERMISSION NOTICE
+ *
+ * Copyright (c) 2014, PaulBGD, <paul@paulbgd.me>.
+ *
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software for any purpose
+ * with or without fee is hereby granted, provided that the above copyright
+ * notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT OF THIRD PARTY RIGHTS. IN
+ * NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * Except as contained in this notice, the name of a copyright holder shall not
+ * be used in advertising or otherwise to promote the sale, use or other dealings
+ * in this Software without prior written authorization of the copyright holder.
+ */
+
+
+package me.paulbgd.bgdcore.blocks.block.paster;
+
+import me.paulbgd.bgdcore.blocks.block.Blocks;
+import org.bukkit.block.Block;
+import org.bukkit.command.CommandSender;
+
+/**
+ * A paster that supports {@link PasteOptions}. Pasters that only implement {@link BlockPaster} can still be given
+ * options, as long as they're {@link PasteOptions#isSimple()}.
+ */
+public interface OptionsPaster extends BlockPaster {
+
+    /**
+     * Pastes blocks at a location
+     *
+     * @param blocks   the blocks to paste
+     * @param location where to paste them
+     * @param paster   who's pasting them
+     * @param options  how to paste them
+     * @throws IllegalArgumentException if this paster can't do what the options ask
+     */
+    public void handle(Blocks blocks, Block location, CommandSender paster, PasteOptions options);
+
+}
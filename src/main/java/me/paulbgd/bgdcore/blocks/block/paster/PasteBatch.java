@@ -0,0 +1,260 @@
+/*
+ * COPYRIGHT AND PERMISSION NOTICE
+ *
+ * Copyright (c) 2014, PaulBGD, <paul@paulbgd.me>.
+ *
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software for any purpose
+ * with or without fee is hereby granted, provided that the above copyright
+ * notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT OF THIRD PARTY RIGHTS. IN
+ * NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * Except as contained in this notice, the name of a copyright holder shall not
+ * be used in advertising or otherwise to promote the sale, use or other dealings
+ * in this Software without prior written authorization of the copyright holder.
+ */
+
+package me.paulbgd.bgdcore.blocks.block.paster;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.List;
+import lombok.Data;
+import lombok.Getter;
+import me.paulbgd.bgdcore.blocks.Cuboid;
+import me.paulbgd.bgdcore.blocks.block.data.BlockData;
+import me.paulbgd.bgdcore.blocks.block.data.ComplexBlockData;
+import me.paulbgd.bgdcore.blocks.block.data.SimpleBlockData;
+import me.paulbgd.bgdcore.nms.NMSManager;
+import me.paulbgd.bgdcore.nms.PackedChunk;
+import me.paulbgd.bgdcore.reflection.ReflectionMethod;
+import me.paulbgd.bgdcore.reflection.ReflectionObject;
+import org.bukkit.Material;
+import org.bukkit.World;
+
+/**
+ * Blocks in a single chunk, ready to be written to the world.
+ * <p/>
+ * Everything that doesn't touch the world is done while adding blocks, including building the NBT of TileEntities, so
+ * batches can be made on another thread. Only {@link me.paulbgd.bgdcore.blocks.BlockUtils#apply(org.bukkit.World, PasteBatch, PasteOptions, PasteStats)}
+ * has to be on the main thread.
+ */
+public class PasteBatch {
+
+    @Getter
+    private final int chunkX, chunkZ;
+    @Getter
+    private final PackedChunk blocks = new PackedChunk();
+    @Getter
+    private final List<PreparedTileEntity> tileEntities = new ArrayList<>();
+    /**
+     * How many blocks were added, including ones that won't be written
+     */
+    @Getter
+    private int size = 0;
+    /**
+     * If this is the last batch of its chunk
+     */
+    @Getter
+    private boolean lastInChunk = true;
+    private boolean masked = false;
+
+    public PasteBatch(int chunkX, int chunkZ) {
+        this.chunkX = chunkX;
+        this.chunkZ = chunkZ;
+    }
+
+    /**
+     * Adds a block to this batch
+     *
+     * @param x       the world x
+     * @param y       the world y
+     * @param z       the world z
+     * @param data    the block
+     * @param options how the block is being pasted
+     */
+    public void add(int x, int y, int z, BlockData data, PasteOptions options) {
+        size++;
+        if (y < 0 || y > 255 || (data.getId() == 0 && !options.isAir())) {
+            return; // no need to do air.. again
+        }
+        PasteMask mask = options.getMask();
+        if (mask != null && !mask.isWorldDependent() && !mask.test(x, y, z, PackedChunk.pack(data.getId(), data.getBlockData()), 0)) {
+            return;
+        }
+        if (data instanceof ComplexBlockData) {
+            tileEntities.add(new PreparedTileEntity(x, y, z, (ComplexBlockData) data));
+            if (!options.isDeferLighting()) {
+                return;
+            }
+        } else if (!(data instanceof SimpleBlockData)) {
+            throw new IllegalArgumentException(String.format("Invalid data type '%s'!", data.getClass()));
+        }
+        blocks.set(x, y, z, data.getId(), data.getBlockData());
+    }
+
+    /**
+     * Fills the part of a region inside of this batch's chunk with air, before any blocks are added. Used to clear the
+     * region of sparse blocks, which leave their air out.
+     *
+     * @param region  the region to clear, in world coordinates
+     * @param options how the blocks are being pasted
+     */
+    public void clear(Cuboid region, PasteOptions options) {
+        int minX = Math.max(region.getMinX(), chunkX << 4), maxX = Math.min(region.getMaxX(), chunkX << 4 | 15);
+        int minZ = Math.max(region.getMinZ(), chunkZ << 4), maxZ = Math.min(region.getMaxZ(), chunkZ << 4 | 15);
+        int minY = Math.max(region.getMinY(), 0), maxY = Math.min(region.getMaxY(), 255);
+        if (minX > maxX || minZ > maxZ || minY > maxY) {
+            return;
+        }
+        PasteMask mask = options.getMask();
+        if (mask == null || mask.isWorldDependent()) {
+            blocks.fill(minX, minY, minZ, maxX, maxY, maxZ, 0, 0);
+            return;
+        }
+        for (int y = minY; y <= maxY; y++) {
+            for (int z = minZ; z <= maxZ; z++) {
+                for (int x = minX; x <= maxX; x++) {
+                    if (mask.test(x, y, z, 0, 0)) {
+                        blocks.set(x, y, z, 0, 0);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds a normal block to this batch, even if it's air
+     *
+     * @param x    the world x
+     * @param y    the world y
+     * @param z    the world z
+     * @param id   the block id
+     * @param data the block data
+     */
+    public void add(int x, int y, int z, int id, int data) {
+        size++;
+        if (y >= 0 && y <= 255) {
+            blocks.set(x, y, z, id, data);
+        }
+    }
+
+    /**
+     * Removes the blocks a mask that needs to know what's in the world doesn't want pasted. Other masks are already
+     * tested when adding. Must be called on the main thread, only does anything the first time.
+     *
+     * @param world the world being pasted in
+     * @param mask  the mask, can be null
+     */
+    public void applyMask(World world, PasteMask mask) {
+        if (masked || mask == null || !mask.isWorldDependent()) {
+            return;
+        }
+        masked = true;
+        BitSet changed = getChanged();
+        if (changed.isEmpty()) {
+            return;
+        }
+        Cuboid column = getColumn(chunkX, chunkZ, changed);
+        int offset = column.getMinY() << 8;
+        short[] ids = new short[(int) column.getVolume()];
+        byte[] data = new byte[ids.length];
+        NMSManager.getNms().getIds(world, column, ids);
+        NMSManager.getNms().getData(world, column, data);
+        for (int section = 0; section < 16; section++) {
+            int[] values = blocks.getSection(section);
+            if (values == null) {
+                continue;
+            }
+            for (int index = 0; index < values.length; index++) {
+                if (values[index] == PackedChunk.UNSET) {
+                    continue;
+                }
+                int x = chunkX << 4 | index & 15, y = section << 4 | index >> 8, z = chunkZ << 4 | index >> 4 & 15;
+                int existing = (section << 12 | index) - offset;
+                if (!mask.test(x, y, z, values[index], PackedChunk.pack(ids[existing], data[existing]))) {
+                    blocks.clear(x, y, z);
+                }
+            }
+        }
+        Iterator<PreparedTileEntity> iterator = tileEntities.iterator();
+        while (iterator.hasNext()) {
+            PreparedTileEntity tileEntity = iterator.next();
+            int x = tileEntity.getX(), y = tileEntity.getY(), z = tileEntity.getZ();
+            int existing = (y << 8 | PackedChunk.getIndex(x, 0, z)) - offset;
+            if (!mask.test(x, y, z, PackedChunk.pack(tileEntity.getType().getId(), tileEntity.getData()), PackedChunk.pack(ids[existing], data[existing]))) {
+                iterator.remove();
+                blocks.clear(x, y, z);
+            }
+        }
+    }
+
+    /**
+     * Gets the part of a chunk from the lowest to the highest of some blocks, to read them all at once with
+     * {@link me.paulbgd.bgdcore.nms.BGDNMS#getIds(org.bukkit.World, me.paulbgd.bgdcore.blocks.Cuboid, short[])}. An
+     * index into the column is the chunk index minus the lowest y << 8.
+     *
+     * @param chunkX  the chunk x
+     * @param chunkZ  the chunk z
+     * @param indexes the blocks, indexed by y << 8 | z << 4 | x, can't be empty
+     * @return the column
+     */
+    static Cuboid getColumn(int chunkX, int chunkZ, BitSet indexes) {
+        return new Cuboid(chunkX << 4, indexes.nextSetBit(0) >> 8, chunkZ << 4, chunkX << 4 | 15, (indexes.length() - 1) >> 8, chunkZ << 4 | 15);
+    }
+
+    /**
+     * Gets every block this batch changes, including TileEntities
+     *
+     * @return the blocks, indexed by y << 8 | z << 4 | x
+     */
+    public BitSet getChanged() {
+        BitSet changed = blocks.getIndexes();
+        for (PreparedTileEntity tileEntity : tileEntities) {
+            changed.set(tileEntity.getY() << 8 | (tileEntity.getZ() & 15) << 4 | tileEntity.getX() & 15);
+        }
+        return changed;
+    }
+
+    PasteBatch setLastInChunk(boolean lastInChunk) {
+        this.lastInChunk = lastInChunk;
+        return this;
+    }
+
+    /**
+     * A TileEntity with its NBT already built and moved to where it's being pasted
+     */
+    @Data
+    public static class PreparedTileEntity {
+        private final int x, y, z;
+        private final Material type;
+        private final short data;
+        private final Object nbt;
+
+        private PreparedTileEntity(int x, int y, int z, ComplexBlockData data) {
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            this.type = Material.getMaterial(data.getId());
+            this.data = data.getBlockData();
+            ReflectionObject nbtTagCompound = new ReflectionObject(data.getNBT());
+            ReflectionMethod setInt = nbtTagCompound.getMethod("setInt", "", 0);
+            setInt.invoke("x", x);
+            setInt.invoke("y", y);
+            setInt.invoke("z", z);
+            this.nbt = nbtTagCompound.getObject();
+            // look the block up now, so the main thread doesn't have to
+            NMSManager.getNms().getBlock(data.getId());
+        }
+    }
+
+}
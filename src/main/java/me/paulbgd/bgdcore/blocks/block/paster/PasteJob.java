@@ -0,0 +1,472 @@
+/*
+ * COPYRIGHT AND PERMISSION NOTICE
+ *
+ * Copyright (c) 2014, PaulBGD, <paul@paulbgd.me>.
+ *
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software for any purpose
+ * with or without fee is hereby granted, provided that the above copyright
+ * notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT OF THIRD PARTY RIGHTS. IN
+ * NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * Except as contained in this notice, the name of a copyright holder shall not
+ * be used in advertising or otherwise to promote the sale, use or other dealings
+ * in this Software without prior written authorization of the copyright holder.
+ */
+
+package me.paulbgd.bgdcore.blocks.block.paster;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import lombok.Getter;
+import me.paulbgd.bgdcore.blocks.BlockUtils;
+import me.paulbgd.bgdcore.blocks.Cuboid;
+import me.paulbgd.bgdcore.blocks.block.Block;
+import me.paulbgd.bgdcore.blocks.block.BlockPosition;
+import me.paulbgd.bgdcore.blocks.block.data.ComplexBlockData;
+import me.paulbgd.bgdcore.nms.PackedChunk;
+import net.minidev.json.JSONObject;
+
+/**
+ * A paste that has been handed to an {@link AsyncPaster}. Can be used to watch, pause or cancel it.
+ * <p/>
+ * The paste is planned and split into {@link PasteBatch}es on a worker thread, the main thread only writes them. If
+ * the options keep a journal, the paste can be {@link #undo()}ne afterwards.
+ * <p/>
+ * {@link #get()} waits for the paste to finish, so it should never be called on the main thread. Use
+ * {@link #addListener(Runnable)} there instead.
+ */
+public class PasteJob implements Future<PasteJob> {
+
+    @Getter
+    private final String name;
+    @Getter
+    private final org.bukkit.block.Block location;
+    @Getter
+    private final PasteOptions options;
+    @Getter
+    private final PasteStats stats = new PasteStats();
+    /**
+     * The chunks that have been written to, but not yet relit
+     */
+    @Getter
+    private final Set<Long> dirty = new LinkedHashSet<>();
+    /**
+     * What the blocks were before being pasted over, or null if the options don't keep a journal
+     */
+    @Getter
+    private final PasteJournal journal;
+    private final AsyncPaster paster;
+    private final Collection<Block> blocks;
+    /**
+     * The journal this job is undoing, if it is one
+     */
+    private final PasteJournal undoing;
+    private final int x, y, z, total, batchSize, readyBatches;
+    /**
+     * Batches that are ready to be written. Once full, preparing waits for the main thread to catch up.
+     */
+    private final BlockingQueue<PasteBatch> ready;
+    /**
+     * Changes to the current chunk that haven't been sent yet, they're all sent after its last batch
+     */
+    private final BitSet pending = new BitSet(65536);
+    private final List<Runnable> listeners = new ArrayList<>();
+    private final CountDownLatch latch = new CountDownLatch(1);
+
+    /**
+     * The order the blocks are pasted in, null until it's been worked out
+     */
+    @Getter
+    private volatile PastePlan plan = null;
+    @Getter
+    private volatile State state = State.QUEUED;
+    private volatile boolean paused = false;
+    /**
+     * If every batch has been handed to the main thread, or preparing gave up
+     */
+    private volatile boolean prepared = false;
+    /**
+     * How many blocks have been pasted so far
+     */
+    @Getter
+    private volatile int position = 0;
+    /**
+     * How many chunks have been finished
+     */
+    @Getter
+    private int chunk = 0;
+    private boolean midChunk = false;
+    private long started = 0;
+    private long finished = 0;
+    private boolean undone = false;
+
+    PasteJob(AsyncPaster paster, String name, Collection<Block> blocks, org.bukkit.block.Block location, PasteOptions options, int batchSize, int readyBatches) {
+        this(paster, name, blocks, null, blocks.size(), location, options, batchSize, readyBatches);
+    }
+
+    private PasteJob(AsyncPaster paster, String name, Collection<Block> blocks, PasteJournal undoing, int total, org.bukkit.block.Block location, PasteOptions options, int batchSize, int readyBatches) {
+        this.paster = paster;
+        this.name = name;
+        this.blocks = blocks;
+        this.undoing = undoing;
+        this.location = location;
+        this.options = options;
+        this.journal = options.isJournal() ? new PasteJournal() : null;
+        this.x = location.getX();
+        this.y = location.getY();
+        this.z = location.getZ();
+        this.total = total;
+        this.batchSize = batchSize;
+        this.readyBatches = readyBatches;
+        this.ready = new ArrayBlockingQueue<>(readyBatches);
+    }
+
+    /**
+     * Splits the paste into batches, waiting whenever enough are ready. Ran on a worker thread.
+     */
+    void prepare() {
+        try {
+            if (undoing != null) {
+                prepareUndo();
+            } else {
+                preparePaste();
+            }
+        } catch (InterruptedException e) {
+            cancel(true);
+        } catch (Exception e) {
+            e.printStackTrace();
+            cancel(false);
+        } finally {
+            prepared = true;
+        }
+    }
+
+    private void preparePaste() throws InterruptedException {
+        long start = System.nanoTime();
+        PastePlan plan = new PastePlan(blocks, x, y, z);
+        this.plan = plan;
+        stats.addPlan(System.nanoTime() - start);
+        Cuboid clear = BlockUtils.getClearRegion(blocks, x, y, z, options);
+        if (clear != null && !prepareClear(plan, clear)) {
+            return;
+        }
+        for (int i = 0; i < plan.getChunkCount(); i++) {
+            int end = plan.getChunkEnd(i);
+            for (int from = plan.getChunkStart(i); from < end; from += batchSize) {
+                if (isCancelled()) {
+                    return;
+                }
+                start = System.nanoTime();
+                int to = Math.min(end, from + batchSize);
+                PasteBatch batch = new PasteBatch(plan.getChunkX(i), plan.getChunkZ(i)).setLastInChunk(to == end);
+                if (clear != null && from == plan.getChunkStart(i)) {
+                    // sparse blocks left their air out, so clear the chunk's part of the region first
+                    batch.clear(clear, options);
+                }
+                for (Block block : plan.getBlocks().subList(from, to)) {
+                    BlockPosition position = block.getPosition();
+                    batch.add(x + position.getRelativeX(), y + position.getRelativeY(), z + position.getRelativeZ(), block.getData(), options);
+                }
+                stats.addPlan(System.nanoTime() - start);
+                if (!offer(batch)) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Clears the chunks of a region that don't have any blocks in them. These don't count towards the job's blocks, but
+     * it isn't done until every batch has been written.
+     *
+     * @param plan  the planned blocks
+     * @param clear the region to clear
+     * @return false if the job was cancelled
+     */
+    private boolean prepareClear(PastePlan plan, Cuboid clear) throws InterruptedException {
+        Set<Long> planned = new HashSet<>();
+        for (int i = 0; i < plan.getChunkCount(); i++) {
+            planned.add(BlockUtils.getChunkKey(plan.getChunkX(i), plan.getChunkZ(i)));
+        }
+        for (int chunkX = clear.getMinX() >> 4; chunkX <= clear.getMaxX() >> 4; chunkX++) {
+            for (int chunkZ = clear.getMinZ() >> 4; chunkZ <= clear.getMaxZ() >> 4; chunkZ++) {
+                if (isCancelled()) {
+                    return false;
+                } else if (planned.contains(BlockUtils.getChunkKey(chunkX, chunkZ))) {
+                    continue;
+                }
+                PasteBatch batch = new PasteBatch(chunkX, chunkZ);
+                batch.clear(clear, options);
+                if (!offer(batch)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private void prepareUndo() throws Exception {
+        undoing.replay(new PasteJournal.Handler() {
+            @Override
+            public boolean handle(PasteJournal.Record record) throws InterruptedException {
+                int[] entries = record.getEntries();
+                int chunkX = record.getChunkX(), chunkZ = record.getChunkZ();
+                for (int from = 0; from < entries.length; from += batchSize) {
+                    if (isCancelled()) {
+                        return false;
+                    }
+                    long start = System.nanoTime();
+                    int to = Math.min(entries.length, from + batchSize);
+                    PasteBatch batch = new PasteBatch(chunkX, chunkZ).setLastInChunk(to == entries.length);
+                    for (int i = from; i < to; i++) {
+                        int index = entries[i] >>> 16, packed = entries[i] & 0xFFFF;
+                        int x = chunkX << 4 | index & 15, y = index >> 8, z = chunkZ << 4 | index >> 4 & 15;
+                        JSONObject tileEntity = record.getTileEntities().get(index);
+                        if (tileEntity != null) {
+                            batch.add(x, y, z, new ComplexBlockData(PackedChunk.getId(packed), tileEntity), options);
+                        } else {
+                            batch.add(x, y, z, PackedChunk.getId(packed), PackedChunk.getData(packed));
+                        }
+                    }
+                    stats.addPlan(System.nanoTime() - start);
+                    if (!offer(batch)) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+        });
+    }
+
+    /**
+     * Hands a batch to the main thread, waiting if it's behind
+     *
+     * @return false if the job was cancelled, or finished, while waiting
+     */
+    private boolean offer(PasteBatch batch) throws InterruptedException {
+        while (!ready.offer(batch, 50, TimeUnit.MILLISECONDS)) {
+            if (isCancelled() || isDone()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gets the next batch to write, if one is ready
+     *
+     * @return the batch, or null if none are ready yet
+     */
+    PasteBatch poll() {
+        return ready.poll();
+    }
+
+    BitSet getPending() {
+        return pending;
+    }
+
+    /**
+     * Marks a batch as written
+     */
+    void applied(PasteBatch batch) {
+        if (started == 0) {
+            started = System.nanoTime();
+            state = State.RUNNING;
+        }
+        position += batch.getSize();
+        midChunk = !batch.isLastInChunk();
+        if (!midChunk) {
+            chunk++;
+        }
+    }
+
+    /**
+     * Marks this job as done and lets everyone waiting know
+     */
+    void complete() {
+        List<Runnable> toRun;
+        synchronized (listeners) {
+            finished = System.nanoTime();
+            if (state != State.CANCELLED) {
+                state = State.DONE;
+            }
+            toRun = new ArrayList<>(listeners);
+            listeners.clear();
+        }
+        latch.countDown();
+        for (Runnable listener : toRun) {
+            listener.run();
+        }
+    }
+
+    /**
+     * Puts every block this job pasted back to what it was, using its journal. The job has to be done first, and can
+     * only be undone once.
+     *
+     * @return the job undoing this one
+     */
+    public PasteJob undo() {
+        if (journal == null) {
+            throw new IllegalStateException("Paste \"" + name + "\" has no journal to undo!");
+        } else if (!isDone()) {
+            throw new IllegalStateException("Paste \"" + name + "\" hasn't finished yet!");
+        } else if (undone) {
+            throw new IllegalStateException("Paste \"" + name + "\" has already been undone!");
+        }
+        undone = true;
+        PasteOptions undoOptions = new PasteOptions().setAir(true).setCompleteColumns(options.isCompleteColumns())
+                .setDeferLighting(options.isDeferLighting()).setLightingChunksPerTick(options.getLightingChunksPerTick())
+                .setPriority(options.getPriority());
+        PasteJob job = new PasteJob(paster, name + "-undo", null, journal, journal.getSize(), location, undoOptions, batchSize, readyBatches);
+        job.addListener(new Runnable() {
+            @Override
+            public void run() {
+                journal.close();
+            }
+        });
+        return paster.submit(job);
+    }
+
+    public boolean isMidChunk() {
+        return midChunk;
+    }
+
+    /**
+     * Checks if there are no more blocks to write, either because every batch is written or the job was cancelled.
+     * Lighting may still be left.
+     *
+     * @return true if there's nothing left to write
+     */
+    public boolean isPasted() {
+        // batches are polled and written in the same tick, so nothing ready after preparing means they're all written
+        return state == State.CANCELLED || (prepared && ready.isEmpty());
+    }
+
+    public boolean isPaused() {
+        return paused;
+    }
+
+    /**
+     * Stops pasting this job until {@link #resume()} is called
+     */
+    public void pause() {
+        this.paused = true;
+    }
+
+    public void resume() {
+        this.paused = false;
+    }
+
+    /**
+     * Adds something to run on the main thread once this job is done or cancelled. Ran straight away if it already is.
+     *
+     * @param listener what to run
+     */
+    public void addListener(Runnable listener) {
+        synchronized (listeners) {
+            if (!isDone()) {
+                listeners.add(listener);
+                return;
+            }
+        }
+        listener.run();
+    }
+
+    /**
+     * Gets how much of this job is done
+     *
+     * @return from 0 to 1
+     */
+    public double getProgress() {
+        return total == 0 ? 1 : (double) position / total;
+    }
+
+    /**
+     * Gets how fast this job is going, from when it started
+     *
+     * @return the blocks pasted per second
+     */
+    public double getBlocksPerSecond() {
+        if (started == 0) {
+            return 0;
+        }
+        long elapsed = (finished == 0 ? System.nanoTime() : finished) - started;
+        return elapsed <= 0 ? 0 : position / (elapsed / 1e9);
+    }
+
+    /**
+     * Gets how long until every block is pasted at the current speed
+     *
+     * @return the milliseconds left, or -1 if it's unknown
+     */
+    public long getEta() {
+        if (isPasted()) {
+            return 0;
+        }
+        double speed = getBlocksPerSecond();
+        return speed <= 0 ? -1 : (long) ((total - position) / speed * 1000);
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        if (isDone()) {
+            return false;
+        }
+        state = State.CANCELLED;
+        return true;
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return state == State.CANCELLED;
+    }
+
+    @Override
+    public boolean isDone() {
+        return latch.getCount() == 0;
+    }
+
+    @Override
+    public PasteJob get() throws InterruptedException {
+        latch.await();
+        return this;
+    }
+
+    @Override
+    public PasteJob get(long timeout, TimeUnit unit) throws InterruptedException, TimeoutException {
+        if (!latch.await(timeout, unit)) {
+            throw new TimeoutException("Paste \"" + name + "\" did not finish in time!");
+        }
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s (%s, %.1f%%)", name, paused && state == State.RUNNING ? "PAUSED" : state, getProgress() * 100);
+    }
+
+    public static enum State {
+        QUEUED, RUNNING, CANCELLED, DONE
+    }
+
+}
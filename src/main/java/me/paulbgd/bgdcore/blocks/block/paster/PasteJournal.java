@@ -0,0 +1,268 @@
+/*
+ * COPYRIGHT AND PERMISSION NOTICE
+ *
+ * Copyright (c) 2014, PaulBGD, <paul@paulbgd.me>.
+ *
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software for any purpose
+ * with or without fee is hereby granted, provided that the above copyright
+ * notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT OF THIRD PARTY RIGHTS. IN
+ * NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * Except as contained in this notice, the name of a copyright holder shall not
+ * be used in advertising or otherwise to promote the sale, use or other dealings
+ * in this Software without prior written authorization of the copyright holder.
+ */
+
+package me.paulbgd.bgdcore.blocks.block.paster;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.Data;
+import lombok.Getter;
+import me.paulbgd.bgdcore.blocks.Cuboid;
+import me.paulbgd.bgdcore.blocks.block.data.ComplexBlockData;
+import me.paulbgd.bgdcore.configuration.CoreConfiguration;
+import me.paulbgd.bgdcore.nms.NMSManager;
+import me.paulbgd.bgdcore.nms.PackedChunk;
+import me.paulbgd.bgdcore.reflection.ReflectionObject;
+import net.minidev.json.JSONObject;
+import net.minidev.json.JSONValue;
+import org.apache.commons.io.IOUtils;
+import org.bukkit.World;
+
+/**
+ * Records what blocks were before a paste overwrote them, so that the paste can be undone.
+ * <p/>
+ * Every block is stored as a single int, its index in the chunk and its packed id and data. Only TileEntities keep
+ * their NBT. Once the journal uses more than {@link CoreConfiguration#pasteJournalMemoryKb} it's written to a temporary
+ * file.
+ */
+public class PasteJournal {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final List<Record> records = new ArrayList<>();
+    /**
+     * The blocks of the current chunk that are already recorded, so that only their first state is kept
+     */
+    private final BitSet recorded = new BitSet(65536);
+    private long chunk = 0;
+    private boolean hasChunk = false;
+    private long memory = 0;
+    private File file = null;
+    private DataOutputStream out = null;
+    /**
+     * How many blocks are recorded
+     */
+    @Getter
+    private int size = 0;
+
+    /**
+     * Records the blocks a batch is about to overwrite. Must be called on the main thread, before the batch is written.
+     *
+     * @param world the world being pasted in
+     * @param batch the batch to be written
+     */
+    public void record(World world, PasteBatch batch) {
+        int chunkX = batch.getChunkX(), chunkZ = batch.getChunkZ();
+        long key = (long) chunkX << 32 | chunkZ & 0xFFFFFFFFL;
+        if (!hasChunk || chunk != key) {
+            // pastes are done a chunk at a time, so a chunk won't come up again
+            recorded.clear();
+            chunk = key;
+            hasChunk = true;
+        }
+
+        BitSet indexes = batch.getChanged();
+        indexes.andNot(recorded);
+        recorded.or(indexes);
+        if (indexes.isEmpty()) {
+            return;
+        }
+
+        // read everything the batch covers at once, column indexes are just chunk indexes starting at the lowest y
+        Cuboid column = PasteBatch.getColumn(chunkX, chunkZ, indexes);
+        int offset = column.getMinY() << 8;
+        short[] ids = new short[(int) column.getVolume()];
+        byte[] data = new byte[ids.length];
+        NMSManager.getNms().getIds(world, column, ids);
+        NMSManager.getNms().getData(world, column, data);
+        Map<Integer, Object> existing = NMSManager.getNms().getTileEntities(world, column);
+
+        int[] entries = new int[indexes.cardinality()];
+        Map<Integer, JSONObject> tileEntities = new LinkedHashMap<>();
+        int i = 0;
+        for (int index = indexes.nextSetBit(0); index >= 0; index = indexes.nextSetBit(index + 1)) {
+            int id = ids[index - offset], blockData = data[index - offset];
+            entries[i++] = index << 16 | PackedChunk.pack(id, blockData) & 0xFFFF;
+            Object tileEntity = existing.get(index - offset);
+            if (tileEntity != null) {
+                tileEntities.put(index, (JSONObject) new ComplexBlockData(new ReflectionObject(tileEntity), blockData).getData());
+            }
+        }
+        add(new Record(chunkX, chunkZ, entries, tileEntities));
+    }
+
+    private void add(Record record) {
+        records.add(record);
+        size += record.getEntries().length;
+        memory += record.getMemory();
+        if (memory > CoreConfiguration.pasteJournalMemoryKb * 1024l) {
+            try {
+                spill();
+            } catch (IOException e) {
+                e.printStackTrace(); // we'll just have to keep it in memory
+            }
+        }
+    }
+
+    /**
+     * Writes every record in memory to the journal's file
+     */
+    private void spill() throws IOException {
+        if (out == null) {
+            file = File.createTempFile("bgdcore-journal", ".bin");
+            file.deleteOnExit();
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+        }
+        for (Record record : records) {
+            out.writeInt(record.getChunkX());
+            out.writeInt(record.getChunkZ());
+            out.writeInt(record.getEntries().length);
+            for (int entry : record.getEntries()) {
+                out.writeInt(entry);
+            }
+            out.writeInt(record.getTileEntities().size());
+            for (Map.Entry<Integer, JSONObject> entry : record.getTileEntities().entrySet()) {
+                byte[] json = entry.getValue().toJSONString().getBytes(UTF_8);
+                out.writeInt(entry.getKey());
+                out.writeInt(json.length);
+                out.write(json);
+            }
+        }
+        out.flush();
+        records.clear();
+        memory = 0;
+    }
+
+    /**
+     * Goes through every record, oldest first
+     *
+     * @param handler what to give the records to
+     * @throws IOException          if the journal's file can't be read
+     * @throws InterruptedException if the handler was interrupted
+     */
+    public void replay(Handler handler) throws IOException, InterruptedException {
+        if (file != null) {
+            out.flush();
+            DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            try {
+                while (true) {
+                    int chunkX;
+                    try {
+                        chunkX = in.readInt();
+                    } catch (EOFException e) {
+                        break;
+                    }
+                    int chunkZ = in.readInt();
+                    int[] entries = new int[in.readInt()];
+                    for (int i = 0; i < entries.length; i++) {
+                        entries[i] = in.readInt();
+                    }
+                    Map<Integer, JSONObject> tileEntities = new LinkedHashMap<>();
+                    for (int i = in.readInt(); i > 0; i--) {
+                        int index = in.readInt();
+                        byte[] json = new byte[in.readInt()];
+                        in.readFully(json);
+                        tileEntities.put(index, (JSONObject) JSONValue.parse(new String(json, UTF_8)));
+                    }
+                    if (!handler.handle(new Record(chunkX, chunkZ, entries, tileEntities))) {
+                        return;
+                    }
+                }
+            } finally {
+                IOUtils.closeQuietly(in);
+            }
+        }
+        for (Record record : new ArrayList<>(records)) {
+            if (!handler.handle(record)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Throws away the journal, deleting its file
+     */
+    public void close() {
+        records.clear();
+        memory = 0;
+        size = 0;
+        IOUtils.closeQuietly(out);
+        out = null;
+        if (file != null && !file.delete()) {
+            file.deleteOnExit();
+        }
+        file = null;
+    }
+
+    public static interface Handler {
+
+        /**
+         * Handles a record of the journal
+         *
+         * @param record the record
+         * @return false to stop replaying
+         */
+        public boolean handle(Record record) throws InterruptedException;
+
+    }
+
+    /**
+     * What a part of a chunk was before being pasted over
+     */
+    @Data
+    public static class Record {
+        private final int chunkX, chunkZ;
+        /**
+         * The blocks, each one the index in the chunk in the upper 16 bits and the {@link PackedChunk#pack(int, int)}ed
+         * id and data in the lower 16 bits
+         */
+        private final int[] entries;
+        /**
+         * The TileEntities by their index in the chunk, as {@link ComplexBlockData} json
+         */
+        private final Map<Integer, JSONObject> tileEntities;
+
+        private long getMemory() {
+            long memory = 16 + entries.length * 4;
+            for (JSONObject json : tileEntities.values()) {
+                memory += 64 + json.size() * 64; // close enough
+            }
+            return memory;
+        }
+    }
+
+}
@@ -0,0 +1,57 @@
+/*
+ * COPYRIGHT AND PERMISSION NOTICE
+ *
+ * Copyright (c) 2014, PaulBGD, <paul@paulbgd.me>.
+ *
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software for any purpose
+ * with or without fee is hereby granted, provided that the above copyright
+ * notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT OF THIRD PARTY RIGHTS. IN
+ * NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * Except as contained in this notice, the name of a copyright holder shall not
+ * be used in advertising or otherwise to promote the sale, use or other dealings
+ * in this Software without prior written authorization of the copyright holder.
+ */
+
+package me.paulbgd.bgdcore.blocks.block.paster;
+
+/**
+ * Decides which blocks of a paste get written. Masks are tested with packed ids and data, see
+ * {@link me.paulbgd.bgdcore.nms.PackedChunk#pack(int, int)}, so they should never need to allocate anything.
+ * <p/>
+ * {@link Masks} has the common ones, and ways to combine them.
+ */
+public abstract class PasteMask {
+
+    /**
+     * Tests a block
+     *
+     * @param x        the world x
+     * @param y        the world y
+     * @param z        the world z
+     * @param packed   the block being pasted
+     * @param existing the block that's in the world now, only given if {@link #isWorldDependent()}
+     * @return true if the block should be pasted
+     */
+    public abstract boolean test(int x, int y, int z, int packed, int existing);
+
+    /**
+     * Checks if this mask needs to know what's in the world. Masks that don't are tested when the paste is prepared,
+     * ones that do are tested on the main thread right before writing.
+     *
+     * @return true if the existing block is needed
+     */
+    public boolean isWorldDependent() {
+        return false;
+    }
+
+}
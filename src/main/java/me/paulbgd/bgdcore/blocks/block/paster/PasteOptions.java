@@ -0,0 +1,126 @@
+/*
+ * COPYRIGHT AND PERMISSION NOTICE
+ *
+ * Copyright (c) 2014, PaulBGD, <paul@paulbgd.me>.
+ *
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software for any purpose
+ * with or without fee is hereby granted, provided that the above copyright
+ * notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT OF THIRD PARTY RIGHTS. IN
+ * NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * Except as contained in this notice, the name of a copyright holder shall not
+ * be used in advertising or otherwise to promote the sale, use or other dealings
+ * in this Software without prior written authorization of the copyright holder.
+ */
+
+package me.paulbgd.bgdcore.blocks.block.paster;
+
+import lombok.Getter;
+
+/**
+ * Options for how a paster should paste a set of blocks.
+ */
+public class PasteOptions {
+
+    /**
+     * If or if not to paste the air
+     */
+    @Getter
+    private boolean air = true;
+    /**
+     * If or if not to set the biomes
+     */
+    @Getter
+    private boolean biomes = false;
+    /**
+     * If a chunk should always be finished in the same tick that it was started in, so that it only has to be sent to
+     * players once. This can go over the tick budget.
+     */
+    @Getter
+    private boolean completeColumns = false;
+    /**
+     * If lighting should be left until every block is pasted, then done once per chunk. Most lighting done during a big
+     * paste is thrown away as the next block changes it again.
+     */
+    @Getter
+    private boolean deferLighting = false;
+    /**
+     * The most chunks to relight every tick once the blocks are pasted, or 0 to relight them all at once.
+     */
+    @Getter
+    private int lightingChunksPerTick = 0;
+    /**
+     * How important this paste is compared to others on the same paster
+     */
+    @Getter
+    private PastePriority priority = PastePriority.NORMAL;
+    /**
+     * If what gets pasted over should be recorded, so that the paste can be undone. Only used by the {@link AsyncPaster}.
+     */
+    @Getter
+    private boolean journal = false;
+    /**
+     * Which blocks to paste, or null to paste them all
+     */
+    @Getter
+    private PasteMask mask = null;
+
+    /**
+     * Checks if these options only choose air and biomes, which every {@link BlockPaster} supports
+     *
+     * @return true, if nothing else is set
+     */
+    public boolean isSimple() {
+        return !completeColumns && !deferLighting && priority == PastePriority.NORMAL && !journal && mask == null;
+    }
+
+    public PasteOptions setAir(boolean air) {
+        this.air = air;
+        return this;
+    }
+
+    public PasteOptions setBiomes(boolean biomes) {
+        this.biomes = biomes;
+        return this;
+    }
+
+    public PasteOptions setCompleteColumns(boolean completeColumns) {
+        this.completeColumns = completeColumns;
+        return this;
+    }
+
+    public PasteOptions setDeferLighting(boolean deferLighting) {
+        this.deferLighting = deferLighting;
+        return this;
+    }
+
+    public PasteOptions setLightingChunksPerTick(int lightingChunksPerTick) {
+        this.lightingChunksPerTick = lightingChunksPerTick;
+        return this;
+    }
+
+    public PasteOptions setPriority(PastePriority priority) {
+        this.priority = priority;
+        return this;
+    }
+
+    public PasteOptions setJournal(boolean journal) {
+        this.journal = journal;
+        return this;
+    }
+
+    public PasteOptions setMask(PasteMask mask) {
+        this.mask = mask;
+        return this;
+    }
+
+}
@@ -0,0 +1,146 @@
+/*
+ * COPYRIGHT AND PERMISSION NOTICE
+ *
+ * Copyright (c) 2014, PaulBGD, <paul@paulbgd.me>.
+ *
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software for any purpose
+ * with or without fee is hereby granted, provided that the above copyright
+ * notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT OF THIRD PARTY RIGHTS. IN
+ * NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * Except as contained in this notice, the name of a copyright holder shall not
+ * be used in advertising or otherwise to promote the sale, use or other dealings
+ * in this Software without prior written authorization of the copyright holder.
+ */
+
+package me.paulbgd.bgdcore.blocks.block.paster;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import lombok.Getter;
+import me.paulbgd.bgdcore.blocks.block.Block;
+import me.paulbgd.bgdcore.blocks.block.BlockPosition;
+
+/**
+ * The order that a set of blocks will be pasted in at a specific location.
+ * <p/>
+ * Blocks are grouped by the chunk they land in, ordered by chunk x, chunk z, section and then y, z, x inside of it.
+ * Pasting in this order finishes every chunk before moving onto the next, so each one is only loaded, marked dirty and
+ * relit once.
+ */
+public class PastePlan {
+
+    @Getter
+    private final List<Block> blocks;
+    private final int[] chunkStarts;
+    private final int[] chunkX;
+    private final int[] chunkZ;
+
+    /**
+     * Creates a plan for the blocks at the specified location
+     *
+     * @param blocks the blocks to paste
+     * @param x      the x to paste at
+     * @param y      the y to paste at
+     * @param z      the z to paste at
+     */
+    public PastePlan(Collection<Block> blocks, final int x, final int y, final int z) {
+        this.blocks = new ArrayList<>(blocks);
+        Collections.sort(this.blocks, new Comparator<Block>() {
+            @Override
+            public int compare(Block o1, Block o2) {
+                return Long.compare(getKey(o1.getPosition(), x, y, z), getKey(o2.getPosition(), x, y, z));
+            }
+        });
+
+        List<Integer> starts = new ArrayList<>();
+        long last = Long.MIN_VALUE;
+        for (int i = 0; i < this.blocks.size(); i++) {
+            BlockPosition position = this.blocks.get(i).getPosition();
+            long chunk = getKey(position, x, y, z) >>> 16;
+            if (chunk != last) {
+                starts.add(i);
+                last = chunk;
+            }
+        }
+        this.chunkStarts = new int[starts.size() + 1];
+        this.chunkX = new int[starts.size()];
+        this.chunkZ = new int[starts.size()];
+        for (int i = 0; i < starts.size(); i++) {
+            BlockPosition position = this.blocks.get(starts.get(i)).getPosition();
+            chunkStarts[i] = starts.get(i);
+            chunkX[i] = (x + position.getRelativeX()) >> 4;
+            chunkZ[i] = (z + position.getRelativeZ()) >> 4;
+        }
+        chunkStarts[starts.size()] = this.blocks.size();
+    }
+
+    /**
+     * Gets the amount of chunks touched by this plan
+     *
+     * @return the chunk count
+     */
+    public int getChunkCount() {
+        return chunkX.length;
+    }
+
+    /**
+     * Gets the index of the first block in the chunk
+     *
+     * @param chunk the chunk index
+     * @return the index of the first block
+     */
+    public int getChunkStart(int chunk) {
+        return chunkStarts[chunk];
+    }
+
+    /**
+     * Gets the index after the last block in the chunk
+     *
+     * @param chunk the chunk index
+     * @return the end of the chunk
+     */
+    public int getChunkEnd(int chunk) {
+        return chunkStarts[chunk + 1];
+    }
+
+    public int getChunkX(int chunk) {
+        return chunkX[chunk];
+    }
+
+    public int getChunkZ(int chunk) {
+        return chunkZ[chunk];
+    }
+
+    /**
+     * Gets the blocks that will be pasted in a chunk
+     *
+     * @param chunk the chunk index
+     * @return the blocks in that chunk
+     */
+    public List<Block> getChunk(int chunk) {
+        return blocks.subList(getChunkStart(chunk), getChunkEnd(chunk));
+    }
+
+    /**
+     * Creates the sort key of a block. From highest to lowest bits: chunk x, chunk z, y (which includes the section), z, x.
+     */
+    private static long getKey(BlockPosition position, int x, int y, int z) {
+        int worldX = x + position.getRelativeX(), worldY = y + position.getRelativeY(), worldZ = z + position.getRelativeZ();
+        long chunkX = (worldX >> 4) + (1 << 21), chunkZ = (worldZ >> 4) + (1 << 21);
+        return chunkX << 38 | chunkZ << 16 | (worldY & 0xFF) << 8 | (worldZ & 0xF) << 4 | worldX & 0xF;
+    }
+
+}
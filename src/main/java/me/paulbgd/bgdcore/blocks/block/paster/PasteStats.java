@@ -0,0 +1,76 @@
+/*
+ * COPYRIGHT AND PERMISSION NOTICE
+ *
+ * Copyright (c) 2014, PaulBGD, <paul@paulbgd.me>.
+ *
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software for any purpose
+ * with or without fee is hereby granted, provided that the above copyright
+ * notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT OF THIRD PARTY RIGHTS. IN
+ * NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * Except as contained in this notice, the name of a copyright holder shall not
+ * be used in advertising or otherwise to promote the sale, use or other dealings
+ * in this Software without prior written authorization of the copyright holder.
+ */
+
+package me.paulbgd.bgdcore.blocks.block.paster;
+
+import lombok.Getter;
+
+/**
+ * How long each part of a paste took, in nanoseconds.
+ */
+@Getter
+public class PasteStats {
+
+    private long planNanos;
+    private long writeNanos;
+    private long tileEntityNanos;
+    private long lightingNanos;
+    private long sendNanos;
+    private int blocks;
+    private int chunks;
+
+    public void addPlan(long nanos) {
+        this.planNanos += nanos;
+    }
+
+    public void addWrite(long nanos, int blocks) {
+        this.writeNanos += nanos;
+        this.blocks += blocks;
+    }
+
+    public void addTileEntities(long nanos, int blocks) {
+        this.tileEntityNanos += nanos;
+        this.blocks += blocks;
+    }
+
+    public void addLighting(long nanos, int chunks) {
+        this.lightingNanos += nanos;
+        this.chunks += chunks;
+    }
+
+    public void addSend(long nanos) {
+        this.sendNanos += nanos;
+    }
+
+    public long getTotalNanos() {
+        return planNanos + writeNanos + tileEntityNanos + lightingNanos + sendNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s blocks, %s relit chunks in %.2fms (plan %.2fms, write %.2fms, tile entities %.2fms, lighting %.2fms, send %.2fms)",
+                blocks, chunks, getTotalNanos() / 1e6, planNanos / 1e6, writeNanos / 1e6, tileEntityNanos / 1e6, lightingNanos / 1e6, sendNanos / 1e6);
+    }
+
+}
@@ -24,19 +24,43 @@
 
 package me.paulbgd.bgdcore.blocks.block.paster;
 
+import java.util.Set;
 import me.paulbgd.bgdcore.blocks.BlockUtils;
 import me.paulbgd.bgdcore.blocks.block.Blocks;
+import me.paulbgd.bgdcore.nms.NMSManager;
 import org.bukkit.ChatColor;
+import org.bukkit.World;
 import org.bukkit.block.Block;
 import org.bukkit.command.CommandSender;
 
 /**
  * A simple paster, just for pasting blocks without anything special.
  */
-public class SimplePaster implements BlockPaster {
+public class SimplePaster implements OptionsPaster {
     @Override
     public void handle(Blocks blocks, Block location, CommandSender paster, boolean air) {
         BlockUtils.paste(blocks, location, air);
         paster.sendMessage(ChatColor.GREEN + "Pasted!");
     }
+
+    /**
+     * Pastes the blocks all at once. Priority and complete columns mean nothing when everything is pasted in one go,
+     * journals can't be returned from here, use the {@link AsyncPaster} for those.
+     */
+    @Override
+    public void handle(Blocks blocks, Block location, CommandSender paster, PasteOptions options) {
+        if (options.isJournal()) {
+            throw new IllegalArgumentException("The simple paster can't journal pastes!");
+        }
+        Set<Long> chunks = BlockUtils.paste(blocks, location, options, null);
+        if (options.isDeferLighting()) {
+            World world = location.getWorld();
+            for (long key : chunks) {
+                int chunkX = (int) (key >> 32), chunkZ = (int) key;
+                NMSManager.getNms().relightChunk(world, chunkX, chunkZ);
+                world.refreshChunk(chunkX, chunkZ);
+            }
+        }
+        paster.sendMessage(ChatColor.GREEN + "Pasted!");
+    }
 }
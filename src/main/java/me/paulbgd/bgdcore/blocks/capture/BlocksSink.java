@@ -0,0 +1,67 @@
+/*
+ * COPYRIGHT AND PERMISSION NOTICE
+ *
+ * Copyright (c) 2014, PaulBGD, <paul@paulbgd.me>.
+ *
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software for any purpose
+ * with or without fee is hereby granted, provided that the above copyright
+ * notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT OF THIRD PARTY RIGHTS. IN
+ * NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * Except as contained in this notice, the name of a copyright holder shall not
+ * be used in advertising or otherwise to promote the sale, use or other dealings
+ * in this Software without prior written authorization of the copyright holder.
+ */
+
+package me.paulbgd.bgdcore.blocks.capture;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import lombok.Getter;
+import me.paulbgd.bgdcore.blocks.block.Blocks;
+import org.bukkit.block.Biome;
+
+/**
+ * Captures into a {@link Blocks}, relative to a point.
+ */
+public class BlocksSink implements CaptureSink {
+
+    @Getter
+    private final Blocks blocks;
+    private final int fromX, fromY, fromZ;
+
+    public BlocksSink(Blocks blocks, org.bukkit.block.Block from) {
+        this.blocks = blocks;
+        this.fromX = from.getX();
+        this.fromY = from.getY();
+        this.fromZ = from.getZ();
+    }
+
+    @Override
+    public void accept(CapturedChunk chunk) {
+        blocks.addBlocks(chunk.toBlocks(fromX, fromY, fromZ, blocks.isSparse()));
+        for (Map.Entry<Biome, List<String>> entry : chunk.getBiomes(fromX, fromZ).entrySet()) {
+            List<String> columns = blocks.getBiomes().get(entry.getKey());
+            if (columns == null) {
+                columns = new ArrayList<>();
+                blocks.getBiomes().put(entry.getKey(), columns);
+            }
+            columns.addAll(entry.getValue());
+        }
+    }
+
+    @Override
+    public void finish(boolean complete) {
+    }
+
+}
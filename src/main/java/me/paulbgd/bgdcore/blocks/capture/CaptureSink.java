@@ -0,0 +1,50 @@
+/*
+ * COPYRIGHT AND PERMISSION NOTICE
+ *
+ * Copyright (c) 2014, PaulBGD, <paul@paulbgd.me>.
+ *
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software for any purpose
+ * with or without fee is hereby granted, provided that the above copyright
+ * notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT OF THIRD PARTY RIGHTS. IN
+ * NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * Except as contained in this notice, the name of a copyright holder shall not
+ * be used in advertising or otherwise to promote the sale, use or other dealings
+ * in this Software without prior written authorization of the copyright holder.
+ */
+
+package me.paulbgd.bgdcore.blocks.capture;
+
+import java.io.IOException;
+
+/**
+ * Where a {@link RegionCapture} puts the chunks it captures.
+ */
+public interface CaptureSink {
+
+    /**
+     * Takes a captured chunk. Called on worker threads, but never by two threads at once.
+     *
+     * @param chunk the chunk
+     * @throws IOException if the chunk couldn't be stored
+     */
+    public void accept(CapturedChunk chunk) throws IOException;
+
+    /**
+     * Called once the capture is done or cancelled, after every chunk has been accepted. Called on a worker thread.
+     *
+     * @param complete false if the capture was cancelled or failed
+     * @throws IOException if the sink couldn't be finished
+     */
+    public void finish(boolean complete) throws IOException;
+
+}
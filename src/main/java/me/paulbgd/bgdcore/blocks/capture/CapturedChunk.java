@@ -0,0 +1,211 @@
+/*
+ * COPYRIGHT AND PERMISSION NOTICE
+ *
+ * Copyright (c) 2014, PaulBGD, <paul@paulbgd.me>.
+ *
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software for any purpose
+ * with or without fee is hereby granted, provided that the above copyright
+ * notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT OF THIRD PARTY RIGHTS. IN
+ * NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * Except as contained in this notice, the name of a copyright holder shall not
+ * be used in advertising or otherwise to promote the sale, use or other dealings
+ * in this Software without prior written authorization of the copyright holder.
+ */
+
+package me.paulbgd.bgdcore.blocks.capture;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.Getter;
+import me.paulbgd.bgdcore.blocks.Cuboid;
+import me.paulbgd.bgdcore.blocks.block.Block;
+import me.paulbgd.bgdcore.blocks.block.BlockPosition;
+import me.paulbgd.bgdcore.blocks.block.data.BlockData;
+import me.paulbgd.bgdcore.blocks.block.data.ComplexBlockData;
+import me.paulbgd.bgdcore.blocks.block.data.SimpleBlockData;
+import net.minidev.json.JSONObject;
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.block.Biome;
+
+/**
+ * The part of a captured region inside of a single chunk, stored as plain arrays.
+ * <p/>
+ * Blocks are indexed by x, then z, then y, see {@link #getIndex(int, int, int)}.
+ */
+public class CapturedChunk {
+
+    static final Biome[] BIOMES = Biome.values();
+
+    @Getter
+    private final int chunkX, chunkZ;
+    /**
+     * The part of the region in this chunk
+     */
+    @Getter
+    private final Cuboid part;
+    private final int width, length;
+    final short[] ids;
+    final byte[] data;
+    /**
+     * The biome of every column, as the biome's ordinal. -1 if unknown
+     */
+    final byte[] biomes;
+    final Map<Integer, JSONObject> tileEntities = new HashMap<>();
+
+    CapturedChunk(int chunkX, int chunkZ, Cuboid region) {
+        this.chunkX = chunkX;
+        this.chunkZ = chunkZ;
+        this.part = new Cuboid(Math.max(region.getMinX(), chunkX << 4), region.getMinY(), Math.max(region.getMinZ(), chunkZ << 4),
+                Math.min(region.getMaxX(), chunkX << 4 | 15), region.getMaxY(), Math.min(region.getMaxZ(), chunkZ << 4 | 15));
+        this.width = part.getWidth();
+        this.length = part.getLength();
+        this.ids = new short[(int) part.getVolume()];
+        this.data = new byte[ids.length];
+        this.biomes = new byte[width * length];
+    }
+
+    /**
+     * Gets the index of a block in this chunk's arrays
+     *
+     * @param x the world x
+     * @param y the world y
+     * @param z the world z
+     * @return the index
+     */
+    public int getIndex(int x, int y, int z) {
+        return ((y - part.getMinY()) * length + (z - part.getMinZ())) * width + (x - part.getMinX());
+    }
+
+    public int getId(int x, int y, int z) {
+        return ids[getIndex(x, y, z)];
+    }
+
+    public int getData(int x, int y, int z) {
+        return data[getIndex(x, y, z)];
+    }
+
+    public Biome getBiome(int x, int z) {
+        int biome = biomes[(z - part.getMinZ()) * width + (x - part.getMinX())];
+        return biome < 0 ? null : BIOMES[biome];
+    }
+
+    /**
+     * Gets the NBT of a TileEntity, in the json format used by {@link ComplexBlockData}
+     *
+     * @return the json, or null if there isn't a TileEntity there
+     */
+    public JSONObject getTileEntity(int x, int y, int z) {
+        return tileEntities.get(getIndex(x, y, z));
+    }
+
+    void setTileEntity(int x, int y, int z, JSONObject json) {
+        tileEntities.put(getIndex(x, y, z), json);
+    }
+
+    /**
+     * Copies this chunk out of its snapshot. Can be called on any thread.
+     *
+     * @param snapshot the chunk's snapshot
+     */
+    void decode(ChunkSnapshot snapshot) {
+        int baseX = chunkX << 4, baseZ = chunkZ << 4;
+        for (int z = part.getMinZ(); z <= part.getMaxZ(); z++) {
+            for (int x = part.getMinX(); x <= part.getMaxX(); x++) {
+                Biome biome = snapshot.getBiome(x - baseX, z - baseZ);
+                biomes[(z - part.getMinZ()) * width + (x - part.getMinX())] = (byte) (biome == null ? -1 : biome.ordinal());
+            }
+        }
+        int index = 0;
+        for (int y = part.getMinY(); y <= part.getMaxY(); y++) {
+            for (int z = part.getMinZ(); z <= part.getMaxZ(); z++) {
+                for (int x = part.getMinX(); x <= part.getMaxX(); x++, index++) {
+                    ids[index] = (short) snapshot.getBlockTypeId(x - baseX, y, z - baseZ);
+                    data[index] = (byte) snapshot.getBlockData(x - baseX, y, z - baseZ);
+                }
+            }
+        }
+    }
+
+    /**
+     * Turns this chunk into blocks
+     *
+     * @param fromX the x the blocks are relative to
+     * @param fromY the y the blocks are relative to
+     * @param fromZ the z the blocks are relative to
+     * @return the blocks
+     */
+    public List<Block> toBlocks(int fromX, int fromY, int fromZ) {
+        return toBlocks(fromX, fromY, fromZ, false);
+    }
+
+    /**
+     * Turns this chunk's part of the region into blocks
+     *
+     * @param fromX   the x the blocks are relative to
+     * @param fromY   the y the blocks are relative to
+     * @param fromZ   the z the blocks are relative to
+     * @param skipAir if air should be left out
+     * @return the blocks
+     */
+    public List<Block> toBlocks(int fromX, int fromY, int fromZ, boolean skipAir) {
+        List<Block> blocks = new ArrayList<>(skipAir ? 16 : ids.length);
+        for (int x = part.getMinX(); x <= part.getMaxX(); x++) {
+            for (int y = part.getMinY(); y <= part.getMaxY(); y++) {
+                for (int z = part.getMinZ(); z <= part.getMaxZ(); z++) {
+                    int index = getIndex(x, y, z);
+                    JSONObject tileEntity = tileEntities.get(index);
+                    if (skipAir && ids[index] == 0 && tileEntity == null) {
+                        continue;
+                    }
+                    BlockData blockData;
+                    if (tileEntity == null) {
+                        blockData = new SimpleBlockData(ids[index], data[index]);
+                    } else {
+                        blockData = new ComplexBlockData(ids[index], tileEntity);
+                    }
+                    blocks.add(new Block(new BlockPosition(x - fromX, y - fromY, z - fromZ), blockData));
+                }
+            }
+        }
+        return blocks;
+    }
+
+    /**
+     * Gets the columns of this chunk by biome, keyed the same way as {@link me.paulbgd.bgdcore.blocks.block.Blocks#getBiomes()}
+     *
+     * @param fromX the x the columns are relative to
+     * @param fromZ the z the columns are relative to
+     * @return the columns of each biome
+     */
+    public Map<Biome, List<String>> getBiomes(int fromX, int fromZ) {
+        Map<Biome, List<String>> columns = new HashMap<>();
+        for (int x = part.getMinX(); x <= part.getMaxX(); x++) {
+            for (int z = part.getMinZ(); z <= part.getMaxZ(); z++) {
+                Biome biome = getBiome(x, z);
+                if (biome == null) {
+                    continue;
+                }
+                List<String> keys = columns.get(biome);
+                if (keys == null) {
+                    keys = new ArrayList<>();
+                    columns.put(biome, keys);
+                }
+                keys.add((x - fromX) + "!" + (z - fromZ));
+            }
+        }
+        return columns;
+    }
+
+}
@@ -0,0 +1,180 @@
+/*
+ * COPYRIGHT AND PERMISSION NOTICE
+ *
+ * Copyright (c) 2014, PaulBGD, <paul@paulbgd.me>.
+ *
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software for any purpose
+ * with or without fee is hereby granted, provided that the above copyright
+ * notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT OF THIRD PARTY RIGHTS. IN
+ * NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * Except as contained in this notice, the name of a copyright holder shall not
+ * be used in advertising or otherwise to promote the sale, use or other dealings
+ * in this Software without prior written authorization of the copyright holder.
+ */
+
+package me.paulbgd.bgdcore.blocks.capture;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import lombok.Getter;
+import me.paulbgd.bgdcore.blocks.Cuboid;
+import me.paulbgd.bgdcore.blocks.block.Block;
+import me.paulbgd.bgdcore.blocks.block.BlockPosition;
+import me.paulbgd.bgdcore.blocks.block.Blocks;
+import me.paulbgd.bgdcore.blocks.block.data.BlockData;
+import me.paulbgd.bgdcore.blocks.block.data.ComplexBlockData;
+import me.paulbgd.bgdcore.blocks.block.data.SimpleBlockData;
+import net.minidev.json.JSONObject;
+import org.bukkit.block.Biome;
+
+/**
+ * The blocks of a region of a world, stored as plain arrays.
+ * <p/>
+ * Blocks are indexed by x, then z, then y, see {@link #getIndex(int, int, int)}. This is the default sink of a
+ * {@link RegionCapture}, holding everything in memory.
+ */
+public class CapturedRegion implements CaptureSink {
+
+    @Getter
+    private final Cuboid region;
+    private final int width, length;
+    private final short[] ids;
+    private final byte[] data;
+    /**
+     * The biome of every column, as the biome's ordinal. -1 if unknown
+     */
+    private final byte[] biomes;
+    private final Map<Integer, JSONObject> tileEntities = new HashMap<>();
+
+    public CapturedRegion(Cuboid region) {
+        if (region.getVolume() > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Region " + region + " is too big to capture!");
+        }
+        this.region = region;
+        this.width = region.getWidth();
+        this.length = region.getLength();
+        this.ids = new short[(int) region.getVolume()];
+        this.data = new byte[ids.length];
+        this.biomes = new byte[width * length];
+    }
+
+    /**
+     * Gets the index of a block in this region's arrays
+     *
+     * @param x the world x
+     * @param y the world y
+     * @param z the world z
+     * @return the index
+     */
+    public int getIndex(int x, int y, int z) {
+        return ((y - region.getMinY()) * length + (z - region.getMinZ())) * width + (x - region.getMinX());
+    }
+
+    public int getId(int x, int y, int z) {
+        return ids[getIndex(x, y, z)];
+    }
+
+    public int getData(int x, int y, int z) {
+        return data[getIndex(x, y, z)];
+    }
+
+    public Biome getBiome(int x, int z) {
+        int biome = biomes[(z - region.getMinZ()) * width + (x - region.getMinX())];
+        return biome < 0 ? null : CapturedChunk.BIOMES[biome];
+    }
+
+    /**
+     * Gets the NBT of a TileEntity, in the json format used by {@link ComplexBlockData}
+     *
+     * @return the json, or null if there isn't a TileEntity there
+     */
+    public JSONObject getTileEntity(int x, int y, int z) {
+        synchronized (tileEntities) {
+            return tileEntities.get(getIndex(x, y, z));
+        }
+    }
+
+    @Override
+    public void accept(CapturedChunk chunk) {
+        Cuboid part = chunk.getPart();
+        int partWidth = part.getWidth();
+        int from = 0;
+        for (int y = part.getMinY(); y <= part.getMaxY(); y++) {
+            for (int z = part.getMinZ(); z <= part.getMaxZ(); z++, from += partWidth) {
+                int to = getIndex(part.getMinX(), y, z);
+                System.arraycopy(chunk.ids, from, ids, to, partWidth);
+                System.arraycopy(chunk.data, from, data, to, partWidth);
+            }
+        }
+        for (int z = part.getMinZ(), i = 0; z <= part.getMaxZ(); z++, i += partWidth) {
+            System.arraycopy(chunk.biomes, i, biomes, (z - region.getMinZ()) * width + (part.getMinX() - region.getMinX()), partWidth);
+        }
+        synchronized (tileEntities) {
+            int partLength = part.getLength();
+            for (Map.Entry<Integer, JSONObject> entry : chunk.tileEntities.entrySet()) {
+                int index = entry.getKey();
+                int x = part.getMinX() + index % partWidth, z = part.getMinZ() + index / partWidth % partLength, y = part.getMinY() + index / partWidth / partLength;
+                tileEntities.put(getIndex(x, y, z), entry.getValue());
+            }
+        }
+    }
+
+    @Override
+    public void finish(boolean complete) {
+    }
+
+    /**
+     * Turns this region into blocks, the same as {@link me.paulbgd.bgdcore.blocks.BlockUtils#getAllBlocks(org.bukkit.block.Block, org.bukkit.block.Block, org.bukkit.block.Block)}
+     * would, with biomes.
+     *
+     * @param from where the blocks are relative to
+     * @return the blocks
+     */
+    public Blocks toBlocks(org.bukkit.block.Block from) {
+        return toBlocks(from.getX(), from.getY(), from.getZ());
+    }
+
+    public Blocks toBlocks(int fromX, int fromY, int fromZ) {
+        Blocks blocks = new Blocks();
+        for (int x = region.getMinX(); x <= region.getMaxX(); x++) {
+            for (int y = region.getMinY(); y <= region.getMaxY(); y++) {
+                for (int z = region.getMinZ(); z <= region.getMaxZ(); z++) {
+                    int index = getIndex(x, y, z);
+                    JSONObject tileEntity = tileEntities.get(index);
+                    BlockData blockData;
+                    if (tileEntity == null) {
+                        blockData = new SimpleBlockData(ids[index], data[index]);
+                    } else {
+                        blockData = new ComplexBlockData(ids[index], tileEntity);
+                    }
+                    blocks.add(new Block(new BlockPosition(x - fromX, y - fromY, z - fromZ), blockData));
+                }
+            }
+        }
+        for (int x = region.getMinX(); x <= region.getMaxX(); x++) {
+            for (int z = region.getMinZ(); z <= region.getMaxZ(); z++) {
+                Biome biome = getBiome(x, z);
+                if (biome == null) {
+                    continue;
+                }
+                if (!blocks.getBiomes().containsKey(biome)) {
+                    blocks.getBiomes().put(biome, new ArrayList<String>());
+                }
+                blocks.getBiomes().get(biome).add((x - fromX) + "!" + (z - fromZ));
+            }
+        }
+        return blocks;
+    }
+
+}
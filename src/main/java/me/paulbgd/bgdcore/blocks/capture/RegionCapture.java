@@ -0,0 +1,338 @@
+/*
+ * COPYRIGHT AND PERMISSION NOTICE
+ *
+ * Copyright (c) 2014, PaulBGD, <paul@paulbgd.me>.
+ *
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software for any purpose
+ * with or without fee is hereby granted, provided that the above copyright
+ * notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT OF THIRD PARTY RIGHTS. IN
+ * NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * Except as contained in this notice, the name of a copyright holder shall not
+ * be used in advertising or otherwise to promote the sale, use or other dealings
+ * in this Software without prior written authorization of the copyright holder.
+ */
+
+package me.paulbgd.bgdcore.blocks.capture;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.Getter;
+import me.paulbgd.bgdcore.BGDCore;
+import me.paulbgd.bgdcore.blocks.Cuboid;
+import me.paulbgd.bgdcore.blocks.TickBudget;
+import me.paulbgd.bgdcore.blocks.block.Blocks;
+import me.paulbgd.bgdcore.blocks.block.data.ComplexBlockData;
+import me.paulbgd.bgdcore.blocks.block.loader.BlocksWriter;
+import me.paulbgd.bgdcore.blocks.block.loader.StreamingBlocksLoader;
+import me.paulbgd.bgdcore.configuration.CoreConfiguration;
+import me.paulbgd.bgdcore.nms.NMSManager;
+import me.paulbgd.bgdcore.reflection.ReflectionObject;
+import net.minidev.json.JSONObject;
+import org.apache.commons.io.IOUtils;
+import org.bukkit.Chunk;
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.World;
+import org.bukkit.block.BlockState;
+import org.bukkit.scheduler.BukkitRunnable;
+
+/**
+ * Captures a region of a world without freezing the server.
+ * <p/>
+ * Every tick, as many chunks as the {@link TickBudget} allows are snapshotted on the main thread, along with the NBT of
+ * their TileEntities. The snapshots are then decoded into {@link CapturedChunk}s on worker threads and handed to a
+ * {@link CaptureSink}. Only {@link CoreConfiguration#captureMaxDecoding} snapshots are kept waiting at once, so the main
+ * thread can't snapshot faster than the workers can decode.
+ *
+ * @param <T> the type of sink being captured into
+ */
+public class RegionCapture<T extends CaptureSink> extends BukkitRunnable {
+
+    @Getter
+    private final World world;
+    @Getter
+    private final Cuboid region;
+    @Getter
+    private final T sink;
+    private final int minChunkX, minChunkZ, maxChunkX, maxChunkZ, chunks;
+    /**
+     * How many snapshots are still being decoded
+     */
+    private final AtomicInteger decoding = new AtomicInteger();
+    private final AtomicInteger decoded = new AtomicInteger();
+    private final List<Runnable> listeners = new ArrayList<>();
+    private int chunkX, chunkZ;
+    private boolean finishing = false;
+    private volatile boolean cancelled = false;
+    @Getter
+    private volatile boolean done = false;
+    /**
+     * What went wrong, if the capture failed
+     */
+    @Getter
+    private volatile Exception failure = null;
+
+    private RegionCapture(World world, Cuboid region, T sink) {
+        this.world = world;
+        this.region = region;
+        this.sink = sink;
+        this.minChunkX = region.getMinX() >> 4;
+        this.minChunkZ = region.getMinZ() >> 4;
+        this.maxChunkX = region.getMaxX() >> 4;
+        this.maxChunkZ = region.getMaxZ() >> 4;
+        this.chunks = (maxChunkX - minChunkX + 1) * (maxChunkZ - minChunkZ + 1);
+        this.chunkX = minChunkX;
+        this.chunkZ = minChunkZ;
+    }
+
+    /**
+     * Starts capturing a region into memory. Must be called on the main thread.
+     *
+     * @param world  the world
+     * @param region the region, any part outside of the world's height is left out
+     * @return the capture
+     */
+    public static RegionCapture<CapturedRegion> capture(World world, Cuboid region) {
+        region = clamp(world, region);
+        return capture(world, region, new CapturedRegion(region));
+    }
+
+    /**
+     * Starts capturing a region into a {@link Blocks}. Must be called on the main thread.
+     *
+     * @param from   where the blocks are relative to
+     * @param region the region, any part outside of the world's height is left out
+     * @return the capture
+     */
+    public static RegionCapture<BlocksSink> toBlocks(org.bukkit.block.Block from, Cuboid region) {
+        return toBlocks(from, region, false);
+    }
+
+    /**
+     * Starts capturing a region into a {@link Blocks}. Must be called on the main thread.
+     * <p/>
+     * If sparse, air is left out, so the blocks only take up as much room as the build inside of the region. The blocks
+     * remember the region, so pasting them with air still clears all of it.
+     *
+     * @param from   where the blocks are relative to
+     * @param region the region, any part outside of the world's height is left out
+     * @param sparse if air should be left out
+     * @return the capture
+     */
+    public static RegionCapture<BlocksSink> toBlocks(org.bukkit.block.Block from, Cuboid region, boolean sparse) {
+        Blocks blocks = new Blocks();
+        if (sparse) {
+            blocks.setSparse(true);
+            blocks.setRegion(relative(clamp(from.getWorld(), region), from));
+        }
+        return capture(from.getWorld(), region, new BlocksSink(blocks, from));
+    }
+
+    /**
+     * Starts capturing a region straight into a file, without keeping the blocks in memory. Must be called on the main
+     * thread.
+     *
+     * @param from   where the blocks are relative to
+     * @param region the region, any part outside of the world's height is left out
+     * @param file   the file to save to
+     * @param loader the format to save in
+     * @return the capture
+     * @throws IOException if the file can't be opened
+     */
+    public static RegionCapture<WriterSink> toFile(org.bukkit.block.Block from, Cuboid region, File file, StreamingBlocksLoader loader) throws IOException {
+        return toFile(from, region, file, loader, false);
+    }
+
+    /**
+     * Starts capturing a region straight into a file, without keeping the blocks in memory. Must be called on the main
+     * thread.
+     *
+     * @param from   where the blocks are relative to
+     * @param region the region, any part outside of the world's height is left out
+     * @param file   the file to save to
+     * @param loader the format to save in
+     * @param sparse if air should be left out, see {@link #toBlocks(org.bukkit.block.Block, Cuboid, boolean)}
+     * @return the capture
+     * @throws IOException if the file can't be opened
+     */
+    public static RegionCapture<WriterSink> toFile(org.bukkit.block.Block from, Cuboid region, File file, StreamingBlocksLoader loader, boolean sparse) throws IOException {
+        region = clamp(from.getWorld(), region);
+        FileOutputStream outputStream = new FileOutputStream(file);
+        try {
+            BlocksWriter writer = loader.newWriter(outputStream);
+            if (sparse) {
+                writer.writeRegion(relative(region, from));
+            }
+            return capture(from.getWorld(), region, new WriterSink(writer, from, sparse));
+        } catch (IOException | RuntimeException e) {
+            // the sink closes it once the capture is done, but there won't be one
+            IOUtils.closeQuietly(outputStream);
+            throw e;
+        }
+    }
+
+    /**
+     * Starts capturing a region. Must be called on the main thread.
+     *
+     * @param world  the world
+     * @param region the region, any part outside of the world's height is left out
+     * @param sink   where to put the blocks
+     * @return the capture
+     */
+    public static <T extends CaptureSink> RegionCapture<T> capture(World world, Cuboid region, T sink) {
+        RegionCapture<T> capture = new RegionCapture<>(world, clamp(world, region), sink);
+        TickBudget.getGlobal();
+        capture.runTaskTimer(BGDCore.getPlugin(BGDCore.class), 1, 1);
+        return capture;
+    }
+
+    private static Cuboid relative(Cuboid region, org.bukkit.block.Block from) {
+        return new Cuboid(region.getMinX() - from.getX(), region.getMinY() - from.getY(), region.getMinZ() - from.getZ(), region.getMaxX() - from.getX(), region.getMaxY() - from.getY(), region.getMaxZ() - from.getZ());
+    }
+
+    private static Cuboid clamp(World world, Cuboid region) {
+        int maxHeight = world.getMaxHeight() - 1;
+        if (region.getMinY() > maxHeight || region.getMaxY() < 0) {
+            throw new IllegalArgumentException("Region " + region + " is outside of the world!");
+        }
+        return new Cuboid(region.getMinX(), Math.max(0, region.getMinY()), region.getMinZ(), region.getMaxX(), Math.min(maxHeight, region.getMaxY()), region.getMaxZ());
+    }
+
+    /**
+     * Adds something to run on the main thread once the capture is done, cancelled or failed. Ran straight away if it
+     * already is.
+     *
+     * @param listener what to run
+     */
+    public void addListener(Runnable listener) {
+        if (done) {
+            listener.run();
+        } else {
+            listeners.add(listener);
+        }
+    }
+
+    /**
+     * Gets how much of the region has been captured
+     *
+     * @return from 0 to 1
+     */
+    public double getProgress() {
+        return (double) decoded.get() / chunks;
+    }
+
+    /**
+     * Stops capturing. Chunks already being decoded are finished first, then the sink is finished and the listeners
+     * ran.
+     */
+    @Override
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Checks if every chunk was captured
+     *
+     * @return true if the capture is done and wasn't cancelled or failed
+     */
+    public boolean isComplete() {
+        return done && !cancelled && failure == null;
+    }
+
+    @Override
+    public void run() {
+        TickBudget budget = TickBudget.getGlobal();
+        boolean first = true;
+        int maxDecoding = Math.max(1, CoreConfiguration.captureMaxDecoding);
+        while (!cancelled && chunkX <= maxChunkX && decoding.get() < maxDecoding && (first || budget.hasRemaining())) {
+            long start = System.nanoTime();
+            snapshot(world.getChunkAt(chunkX, chunkZ));
+            budget.consume(System.nanoTime() - start);
+            first = false;
+            if (++chunkZ > maxChunkZ) {
+                chunkZ = minChunkZ;
+                chunkX++;
+            }
+        }
+        if ((cancelled || chunkX > maxChunkX) && decoding.get() == 0 && !finishing) {
+            finishing = true;
+            super.cancel();
+            new BukkitRunnable() {
+                @Override
+                public void run() {
+                    try {
+                        sink.finish(!cancelled && failure == null);
+                    } catch (IOException e) {
+                        e.printStackTrace();
+                        failure = e;
+                    }
+                    new BukkitRunnable() {
+                        @Override
+                        public void run() {
+                            done = true;
+                            for (Runnable listener : listeners) {
+                                listener.run();
+                            }
+                            listeners.clear();
+                        }
+                    }.runTask(BGDCore.getPlugin(BGDCore.class));
+                }
+            }.runTaskAsynchronously(BGDCore.getPlugin(BGDCore.class));
+        }
+    }
+
+    private void snapshot(Chunk chunk) {
+        final CapturedChunk captured = new CapturedChunk(chunk.getX(), chunk.getZ(), region);
+        for (BlockState state : chunk.getTileEntities()) {
+            int x = state.getX(), y = state.getY(), z = state.getZ();
+            if (!captured.getPart().contains(x, y, z)) {
+                continue;
+            }
+            ReflectionObject tileEntity = NMSManager.getNms().getTileEntity(world, x, y, z);
+            if (tileEntity != null && tileEntity.getObject() != null) {
+                captured.setTileEntity(x, y, z, (JSONObject) new ComplexBlockData(tileEntity, state.getRawData()).getData());
+            }
+        }
+        final ChunkSnapshot snapshot = chunk.getChunkSnapshot(false, true, false);
+        decoding.incrementAndGet();
+        new BukkitRunnable() {
+            @Override
+            public void run() {
+                try {
+                    if (cancelled) {
+                        return;
+                    }
+                    captured.decode(snapshot);
+                    synchronized (sink) {
+                        sink.accept(captured);
+                    }
+                    decoded.incrementAndGet();
+                } catch (Exception e) {
+                    e.printStackTrace();
+                    failure = e;
+                    cancelled = true;
+                } finally {
+                    decoding.decrementAndGet();
+                }
+            }
+        }.runTaskAsynchronously(BGDCore.getPlugin(BGDCore.class));
+    }
+
+}
@@ -0,0 +1,284 @@
+/*
+ * COPYRIGHT AND PERMISSION NOTICE
+ *
+ * Copyright (c) 2014, PaulBGD, <paul@paulbgd.me>.
+ *
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software for any purpose
+ * with or without fee is hereby granted, provided that the above copyright
+ * notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT OF THIRD PARTY RIGHTS. IN
+ * NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * Except as contained in this notice, the name of a copyright holder shall not
+ * be used in advertising or otherwise to promote the sale, use or other dealings
+ * in this Software without prior written authorization of the copyright holder.
+ */
+
+package me.paulbgd.bgdcore.blocks.capture;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import lombok.Getter;
+import me.paulbgd.bgdcore.blocks.Cuboid;
+import me.paulbgd.bgdcore.blocks.block.Block;
+import me.paulbgd.bgdcore.blocks.block.BlockPosition;
+import me.paulbgd.bgdcore.blocks.block.Blocks;
+import me.paulbgd.bgdcore.blocks.block.data.BlockData;
+import me.paulbgd.bgdcore.blocks.block.data.ComplexBlockData;
+import me.paulbgd.bgdcore.nms.PackedChunk;
+import net.minidev.json.JSONObject;
+import org.bukkit.World;
+
+/**
+ * A 64 bit hash of every 16x16x16 section of a region, lined up with the world's chunk sections.
+ * <p/>
+ * Air doesn't add anything to a hash, so a missing block and air are the same. The hashes of a region of the world and
+ * of a template pasted over it can be compared with {@link #diff(RegionFingerprint)} to find which sections changed,
+ * then only those need to be pasted again using {@link me.paulbgd.bgdcore.blocks.block.paster.Masks#sections(java.util.Set)}.
+ */
+public class RegionFingerprint {
+
+    @Getter
+    private final Cuboid region;
+    private final Map<Long, Long> sections = new HashMap<>();
+
+    RegionFingerprint(Cuboid region) {
+        this.region = region;
+    }
+
+    /**
+     * Hashes a template as if it was pasted somewhere. Templates keep their own hashes cached, see
+     * {@link me.paulbgd.bgdcore.blocks.block.Blocks#getFingerprint(int, int, int)}.
+     *
+     * @param blocks the template
+     * @param x      the x it's pasted at
+     * @param y      the y it's pasted at
+     * @param z      the z it's pasted at
+     * @return the hashes
+     */
+    public static RegionFingerprint of(Iterable<Block> blocks, int x, int y, int z) {
+        int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE, minZ = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE, maxZ = Integer.MIN_VALUE;
+        Map<Long, Long> sections = new HashMap<>();
+        for (Block block : blocks) {
+            BlockPosition position = block.getPosition();
+            int j = x + position.getRelativeX(), k = y + position.getRelativeY(), l = z + position.getRelativeZ();
+            minX = Math.min(minX, j);
+            minY = Math.min(minY, k);
+            minZ = Math.min(minZ, l);
+            maxX = Math.max(maxX, j);
+            maxY = Math.max(maxY, k);
+            maxZ = Math.max(maxZ, l);
+            BlockData data = block.getData();
+            JSONObject tileEntity = data instanceof ComplexBlockData ? (JSONObject) ((JSONObject) data.getData()).get("n") : null;
+            long hash = hash(j, k, l, PackedChunk.pack(data.getId(), data.getBlockData()), tileEntity);
+            if (hash != 0) {
+                add(sections, getSectionKey(j >> 4, k >> 4, l >> 4), hash);
+            }
+        }
+        // air hashes to nothing, so sparse blocks only differ by the region they were captured from
+        Cuboid region = blocks instanceof Blocks ? ((Blocks) blocks).getRegion(x, y, z) : null;
+        if (region == null) {
+            region = minX > maxX ? new Cuboid(x, y, z, x, y, z) : new Cuboid(minX, minY, minZ, maxX, maxY, maxZ);
+        }
+        RegionFingerprint fingerprint = new RegionFingerprint(region);
+        fingerprint.sections.putAll(sections);
+        return fingerprint;
+    }
+
+    /**
+     * Starts hashing a region of the world. Must be called on the main thread.
+     *
+     * @param world  the world
+     * @param region the region, this should be the template's {@link #getRegion()} when comparing with one
+     * @return the capture, its sink has the hashes once done
+     */
+    public static RegionCapture<Sink> capture(World world, Cuboid region) {
+        return RegionCapture.capture(world, region, new Sink(region));
+    }
+
+    /**
+     * Hashes a single block
+     *
+     * @param x          the world x
+     * @param y          the world y
+     * @param z          the world z
+     * @param packed     the packed id and data
+     * @param tileEntity the NBT json of the block's TileEntity, or null
+     * @return the hash, 0 for air
+     */
+    static long hash(int x, int y, int z, int packed, JSONObject tileEntity) {
+        if (packed == 0 && tileEntity == null) {
+            return 0;
+        }
+        int index = (y & 15) << 8 | (z & 15) << 4 | x & 15;
+        long hash = mix((long) index << 16 | packed);
+        if (tileEntity != null) {
+            hash += mix((long) hashTileEntity(tileEntity) << 16 ^ index);
+        }
+        return hash;
+    }
+
+    /**
+     * Hashes a TileEntity's NBT, leaving out where it is. Maps hash the same no matter what order they were filled in,
+     * and a map's hash is the sum of its entries, so they can just be taken away.
+     */
+    private static int hashTileEntity(JSONObject tileEntity) {
+        int hash = tileEntity.hashCode();
+        for (String key : new String[]{"x", "y", "z"}) {
+            if (tileEntity.containsKey(key)) {
+                Object value = tileEntity.get(key);
+                hash -= key.hashCode() ^ (value == null ? 0 : value.hashCode());
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * The finalizer of SplitMix64, spreads every bit of the input over the output
+     */
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+        value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+        return value ^ (value >>> 31);
+    }
+
+    private static void add(Map<Long, Long> sections, long key, long hash) {
+        Long current = sections.get(key);
+        // adding keeps the hash the same no matter what order the blocks are in
+        sections.put(key, current == null ? hash : current + hash);
+    }
+
+    /**
+     * Gets the key of a section
+     *
+     * @param sectionX the section x, or chunk x
+     * @param sectionY the section y, from 0 to 15
+     * @param sectionZ the section z, or chunk z
+     * @return the key
+     */
+    public static long getSectionKey(int sectionX, int sectionY, int sectionZ) {
+        return ((long) sectionX & 0xFFFFFF) << 32 | ((long) sectionZ & 0xFFFFFF) << 8 | sectionY & 0xFF;
+    }
+
+    /**
+     * Gets the blocks in a section
+     *
+     * @param key the section's key
+     * @return the section
+     */
+    public static Cuboid getSection(long key) {
+        int sectionX = (int) (key >>> 32) << 8 >> 8, sectionZ = (int) (key >>> 8) << 8 >> 8, sectionY = (int) key & 0xFF;
+        return new Cuboid(sectionX << 4, sectionY << 4, sectionZ << 4, sectionX << 4 | 15, sectionY << 4 | 15, sectionZ << 4 | 15);
+    }
+
+    /**
+     * Gets the hash of a section
+     *
+     * @param key the section's key
+     * @return the hash, 0 if it's empty
+     */
+    public long getHash(long key) {
+        Long hash = sections.get(key);
+        return hash == null ? 0 : hash;
+    }
+
+    /**
+     * Gets every section that isn't empty
+     *
+     * @return the keys of the sections
+     */
+    public Set<Long> getSections() {
+        return Collections.unmodifiableSet(sections.keySet());
+    }
+
+    /**
+     * Finds the sections that are different between two fingerprints
+     *
+     * @param other the other fingerprint
+     * @return the keys of the sections that are different
+     */
+    public Set<Long> diff(RegionFingerprint other) {
+        Set<Long> dirty = new HashSet<>();
+        for (Map.Entry<Long, Long> entry : sections.entrySet()) {
+            if (other.getHash(entry.getKey()) != entry.getValue()) {
+                dirty.add(entry.getKey());
+            }
+        }
+        for (Map.Entry<Long, Long> entry : other.sections.entrySet()) {
+            if (getHash(entry.getKey()) != entry.getValue()) {
+                dirty.add(entry.getKey());
+            }
+        }
+        return dirty;
+    }
+
+    /**
+     * Moves this fingerprint by whole sections
+     *
+     * @return the moved fingerprint
+     */
+    public RegionFingerprint translate(int sectionsX, int sectionsY, int sectionsZ) {
+        if (sectionsX == 0 && sectionsY == 0 && sectionsZ == 0) {
+            return this;
+        }
+        int x = sectionsX << 4, y = sectionsY << 4, z = sectionsZ << 4;
+        RegionFingerprint moved = new RegionFingerprint(new Cuboid(region.getMinX() + x, region.getMinY() + y, region.getMinZ() + z, region.getMaxX() + x, region.getMaxY() + y, region.getMaxZ() + z));
+        for (Map.Entry<Long, Long> entry : sections.entrySet()) {
+            long key = entry.getKey();
+            int sectionX = (int) (key >>> 32) << 8 >> 8, sectionZ = (int) (key >>> 8) << 8 >> 8, sectionY = (int) key & 0xFF;
+            moved.sections.put(getSectionKey(sectionX + sectionsX, sectionY + sectionsY, sectionZ + sectionsZ), entry.getValue());
+        }
+        return moved;
+    }
+
+    /**
+     * Hashes the chunks of a capture
+     */
+    public static class Sink implements CaptureSink {
+
+        @Getter
+        private final RegionFingerprint fingerprint;
+
+        private Sink(Cuboid region) {
+            this.fingerprint = new RegionFingerprint(region);
+        }
+
+        @Override
+        public void accept(CapturedChunk chunk) {
+            Cuboid part = chunk.getPart();
+            for (int y = part.getMinY(); y <= part.getMaxY(); y++) {
+                for (int z = part.getMinZ(); z <= part.getMaxZ(); z++) {
+                    for (int x = part.getMinX(); x <= part.getMaxX(); x++) {
+                        int index = chunk.getIndex(x, y, z);
+                        JSONObject tileEntity = chunk.tileEntities.get(index);
+                        if (tileEntity != null) {
+                            tileEntity = (JSONObject) tileEntity.get("n");
+                        }
+                        long hash = hash(x, y, z, PackedChunk.pack(chunk.ids[index], chunk.data[index]), tileEntity);
+                        if (hash != 0) {
+                            add(fingerprint.sections, getSectionKey(x >> 4, y >> 4, z >> 4), hash);
+                        }
+                    }
+                }
+            }
+        }
+
+        @Override
+        public void finish(boolean complete) {
+        }
+
+    }
+
+}
@@ -0,0 +1,72 @@
+/*
+ * COPYRIGHT AND PERMISSION NOTICE
+ *
+ * Copyright (c) 2014, PaulBGD, <paul@paulbgd.me>.
+ *
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software for any purpose
+ * with or without fee is hereby granted, provided that the above copyright
+ * notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT OF THIRD PARTY RIGHTS. IN
+ * NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * Except as contained in this notice, the name of a copyright holder shall not
+ * be used in advertising or otherwise to promote the sale, use or other dealings
+ * in this Software without prior written authorization of the copyright holder.
+ */
+
+package me.paulbgd.bgdcore.blocks.capture;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import me.paulbgd.bgdcore.blocks.block.Block;
+import me.paulbgd.bgdcore.blocks.block.loader.BlocksWriter;
+import org.bukkit.block.Biome;
+
+/**
+ * Captures straight into a {@link BlocksWriter}, so that the blocks never all have to be in memory.
+ */
+public class WriterSink implements CaptureSink {
+
+    private final BlocksWriter writer;
+    private final int fromX, fromY, fromZ;
+    private final boolean skipAir;
+
+    public WriterSink(BlocksWriter writer, org.bukkit.block.Block from) {
+        this(writer, from, false);
+    }
+
+    public WriterSink(BlocksWriter writer, org.bukkit.block.Block from, boolean skipAir) {
+        this.writer = writer;
+        this.skipAir = skipAir;
+        this.fromX = from.getX();
+        this.fromY = from.getY();
+        this.fromZ = from.getZ();
+    }
+
+    @Override
+    public void accept(CapturedChunk chunk) throws IOException {
+        for (Block block : chunk.toBlocks(fromX, fromY, fromZ, skipAir)) {
+            writer.write(block);
+        }
+        for (Map.Entry<Biome, List<String>> entry : chunk.getBiomes(fromX, fromZ).entrySet()) {
+            for (String column : entry.getValue()) {
+                writer.writeBiome(entry.getKey(), column);
+            }
+        }
+    }
+
+    @Override
+    public void finish(boolean complete) throws IOException {
+        writer.close();
+    }
+
+}
@@ -0,0 +1,305 @@
+package me.paulbgd.bgdcore.commands.def;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import me.paulbgd.bgdcore.BGDCore;
+import me.paulbgd.bgdcore.commands.Command;
+import me.paulbgd.bgdcore.blocks.block.data.ComplexBlockData;
+import me.paulbgd.bgdcore.commands.Subcommand;
+import me.paulbgd.bgdcore.items.ItemBuilder;
+import me.paulbgd.bgdcore.items.ItemConverter;
+import me.paulbgd.bgdcore.items.ItemTemplates;
+import me.paulbgd.bgdcore.items.TransitionItem;
+import me.paulbgd.bgdcore.nms.BGDNMS;
+import me.paulbgd.bgdcore.nms.NMSManager;
+import me.paulbgd.bgdcore.reflection.MemberCache;
+import me.paulbgd.bgdcore.reflection.NMSReflection;
+import me.paulbgd.bgdcore.reflection.Reflection;
+import me.paulbgd.bgdcore.reflection.ReflectionObject;
+import net.minidev.json.JSONObject;
+import org.bukkit.Bukkit;
+import org.bukkit.ChatColor;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.command.CommandSender;
+import org.bukkit.enchantments.Enchantment;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.bukkit.permissions.Permission;
+import org.bukkit.permissions.PermissionDefault;
+
+/**
+ * Rough microbenchmarks, to see what BGDCore's hot paths cost on a live server.
+ */
+public class BenchCommand extends Command {
+
+    private static final int defaultIterations = 100000;
+
+    public BenchCommand(BGDCore bgdCore) {
+        super(bgdCore, "", "Shows help", new Permission("bgdcore.cmds.bench", PermissionDefault.OP), "bgdbench");
+
+        addSubCommand(new Nms(), new Lookups(), new Nbt());
+    }
+
+    @Override
+    public void onCommand(CommandSender sender, String[] args) {
+        showHelp(sender);
+    }
+
+    /**
+     * Times a task, after running it as many times again to warm up
+     *
+     * @param task       the task
+     * @param iterations how many times to run it
+     * @return the average time of one run, in nanoseconds
+     */
+    private static double measure(Task task, int iterations) throws Throwable {
+        int sink = 0;
+        for (int i = 0; i < iterations; i++) {
+            sink += task.run(i);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sink += task.run(i);
+        }
+        long time = System.nanoTime() - start;
+        if (sink == 42) {
+            BGDCore.debug("Lucky number!"); // keeps the results from being optimized away
+        }
+        return (double) time / iterations;
+    }
+
+    private static int getIterations(String[] args) {
+        if (args.length > 0) {
+            try {
+                return Math.max(1, Integer.parseInt(args[0]));
+            } catch (NumberFormatException e) {
+                // use the default
+            }
+        }
+        return defaultIterations;
+    }
+
+    private void sendResult(CommandSender sender, String name, double before, double after) {
+        sendMessage(String.format("%s%s: %s%.1fns %s-> %s%.1fns %s(%.1fx)", ChatColor.GRAY, name, ChatColor.RED, before, ChatColor.GRAY, ChatColor.GREEN, after, ChatColor.GRAY, before / after), sender);
+    }
+
+    private void sendTime(CommandSender sender, String name, double time) {
+        sendMessage(String.format("%s%s: %s%.1fns", ChatColor.GRAY, name, ChatColor.GREEN, time), sender);
+    }
+
+    private interface Task {
+
+        public int run(int i) throws Throwable;
+
+    }
+
+    public class Nms extends Subcommand {
+
+        public Nms() {
+            super(new Permission("bgdcore.cmds.bench.nms", PermissionDefault.OP), "[iterations]", "Compares looking up NMS methods every call to the cached handles", "nms");
+        }
+
+        @Override
+        public void onCommand(CommandSender sender, String[] args) {
+            Location location = sender instanceof Player ? ((Player) sender).getLocation() : Bukkit.getWorlds().get(0).getSpawnLocation();
+            final World world = location.getWorld();
+            final int x = location.getBlockX(), y = Math.max(0, Math.min(255, location.getBlockY() - 1)), z = location.getBlockZ();
+            final BGDNMS nms = NMSManager.getNms();
+            int iterations = getIterations(args);
+            sendMessage(ChatColor.AQUA + "Running " + iterations + " calls of each, per call:", sender);
+            try {
+                sendResult(sender, "getId", measure(new Task() {
+                    @Override
+                    public int run(int i) {
+                        // how every call used to work
+                        ReflectionObject nmsWorld = new ReflectionObject(world).getMethod("getHandle").invoke();
+                        Object block = NMSReflection.nmsWorld.getMethod(nmsWorld.getObject(), "getType", x, y, z).invoke(x, y, z).getObject();
+                        return (int) NMSReflection.craftMagicNumbers.getStaticMethod("getId", new Class[]{NMSReflection.nmsBlock.getClazz()}).invoke(block).getObject();
+                    }
+                }, iterations), measure(new Task() {
+                    @Override
+                    public int run(int i) {
+                        return nms.getId(world, x, y, z);
+                    }
+                }, iterations));
+                sendResult(sender, "getData", measure(new Task() {
+                    @Override
+                    public int run(int i) {
+                        ReflectionObject nmsWorld = new ReflectionObject(world).getMethod("getHandle").invoke();
+                        return (int) nmsWorld.getMethod("getData", x, y, z).invoke(x, y, z).getObject();
+                    }
+                }, iterations), measure(new Task() {
+                    @Override
+                    public int run(int i) {
+                        return nms.getData(world, x, y, z);
+                    }
+                }, iterations));
+            } catch (Throwable throwable) {
+                throwable.printStackTrace();
+                sendMessage(ChatColor.RED + "Benchmark failed, see console.", sender);
+            }
+        }
+
+    }
+
+    public class Lookups extends Subcommand {
+
+        public Lookups() {
+            super(new Permission("bgdcore.cmds.bench.reflection", PermissionDefault.OP), "[iterations]", "Compares finding a method every call to the member cache", "reflection");
+        }
+
+        @Override
+        public void onCommand(CommandSender sender, String[] args) {
+            final ReflectionObject object = new ReflectionObject(new StringBuilder());
+            int iterations = getIterations(args);
+            sendMessage(ChatColor.AQUA + "Running " + iterations + " lookups of each, per call:", sender);
+            try {
+                sendResult(sender, "getMethod", measure(new Task() {
+                    @Override
+                    public int run(int i) throws Throwable {
+                        // how every lookup used to work
+                        Method method = object.getObject().getClass().getDeclaredMethod("append", Reflection.objectsToClassArray(new Object[]{i}));
+                        method.setAccessible(true);
+                        return method.getModifiers();
+                    }
+                }, iterations), measure(new Task() {
+                    @Override
+                    public int run(int i) {
+                        return object.getMethod("append", i).getMethod().getModifiers();
+                    }
+                }, iterations));
+            } catch (Throwable throwable) {
+                throwable.printStackTrace();
+                sendMessage(ChatColor.RED + "Benchmark failed, see console.", sender);
+            }
+            sendMessage(String.format("%sMember cache: %s%d %scached, %s%.1f%% %shit rate, %s%d %smissing, %s%.2fms %sspent finding", ChatColor.GRAY, ChatColor.WHITE, MemberCache.getSize(), ChatColor.GRAY, ChatColor.WHITE, MemberCache.getHitRate() * 100, ChatColor.GRAY, ChatColor.WHITE, MemberCache.getMissing(), ChatColor.GRAY, ChatColor.WHITE, MemberCache.getResolveTime() / 1000000D, ChatColor.GRAY), sender);
+        }
+
+    }
+
+    public class Nbt extends Subcommand {
+
+        public Nbt() {
+            super(new Permission("bgdcore.cmds.bench.nbt", PermissionDefault.OP), "[iterations]", "Times converting items and TileEntities between NBT, bytes and JSON", "nbt");
+        }
+
+        @Override
+        public void onCommand(CommandSender sender, String[] args) {
+            ItemStack itemStack = sender instanceof Player ? ((Player) sender).getItemInHand() : null;
+            if (itemStack == null || itemStack.getType() == Material.AIR) {
+                // something with a bit of everything
+                itemStack = new ItemStack(Material.DIAMOND_SWORD);
+                ItemMeta itemMeta = itemStack.getItemMeta();
+                itemMeta.setDisplayName(ChatColor.AQUA + "Benchmark");
+                itemMeta.setLore(Arrays.asList("One", "Two", "Three"));
+                itemStack.setItemMeta(itemMeta);
+                itemStack.addUnsafeEnchantment(Enchantment.DAMAGE_ALL, 5);
+            }
+            final ItemStack item = itemStack;
+            final TransitionItem transitionItem = ItemConverter.getItem(item);
+            final BGDNMS nms = NMSManager.getNms();
+            final Object nbt = nms.jsonToNBT(transitionItem.getJsonObject());
+            int iterations = getIterations(args);
+            sendMessage(ChatColor.AQUA + "Running " + iterations + " conversions of each, per call:", sender);
+            try {
+                sendTime(sender, "ItemStack to JSON", measure(new Task() {
+                    @Override
+                    public int run(int i) {
+                        return ItemConverter.getItem(item).getJsonObject().size();
+                    }
+                }, iterations));
+                sendTime(sender, "JSON to ItemStack", measure(new Task() {
+                    @Override
+                    public int run(int i) {
+                        return ItemConverter.convertToBukkit(transitionItem).getAmount();
+                    }
+                }, iterations));
+                sendTime(sender, "NBT to JSON", measure(new Task() {
+                    @Override
+                    public int run(int i) {
+                        return nms.nbtToJSON(nbt).size();
+                    }
+                }, iterations));
+                sendTime(sender, "JSON to NBT", measure(new Task() {
+                    @Override
+                    public int run(int i) {
+                        return nms.jsonToNBT(transitionItem.getJsonObject()).hashCode();
+                    }
+                }, iterations));
+                final byte[] bytes = nms.getItemBytes(item);
+                sendResult(sender, "Item save", measure(new Task() {
+                    @Override
+                    public int run(int i) {
+                        return ItemConverter.getItem(item).toString().length();
+                    }
+                }, iterations), measure(new Task() {
+                    @Override
+                    public int run(int i) {
+                        return nms.getItemBytes(item).length;
+                    }
+                }, iterations));
+                sendResult(sender, "Item load", measure(new Task() {
+                    @Override
+                    public int run(int i) {
+                        return ItemConverter.getItem(transitionItem.toString()).asBukkitItem().getAmount();
+                    }
+                }, iterations), measure(new Task() {
+                    @Override
+                    public int run(int i) {
+                        return nms.getBukkitItem(bytes).getAmount();
+                    }
+                }, iterations));
+                sendMessage(String.format("%sItem size: %s%d %sJSON, %s%d %sNBT, %s%d %sdeflated, %s%d %sbase64", ChatColor.GRAY, ChatColor.WHITE, transitionItem.toString().length(), ChatColor.GRAY, ChatColor.WHITE, bytes.length, ChatColor.GRAY, ChatColor.WHITE, transitionItem.toBytes(true).length, ChatColor.GRAY, ChatColor.WHITE, transitionItem.toBase64().length(), ChatColor.GRAY), sender);
+                if (sender instanceof Player) {
+                    final org.bukkit.block.Block block = ((Player) sender).getTargetBlock(null, 10);
+                    final ReflectionObject tileEntity = nms.getTileEntity(block.getWorld(), block.getX(), block.getY(), block.getZ());
+                    if (tileEntity != null && tileEntity.getObject() != null) {
+                        sendTime(sender, "TileEntity to JSON", measure(new Task() {
+                            @Override
+                            public int run(int i) {
+                                return new ComplexBlockData(tileEntity, block.getData()).getId();
+                            }
+                        }, iterations));
+                    } else {
+                        sendMessage(ChatColor.GRAY + "Look at a TileEntity to time those too.", sender);
+                    }
+                }
+                sendResult(sender, "Custom tag check", measure(new Task() {
+                    @Override
+                    public int run(int i) {
+                        // how listeners used to find custom items
+                        JSONObject tag = (JSONObject) ItemConverter.getItem(item).getJsonObject().get("tag");
+                        return tag != null && tag.containsKey("BGDCore") ? 1 : 0;
+                    }
+                }, iterations), measure(new Task() {
+                    @Override
+                    public int run(int i) {
+                        return ItemConverter.hasCustomTag(item) ? 1 : 0;
+                    }
+                }, iterations));
+                final ItemBuilder builder = new ItemBuilder(item);
+                final ItemBuilder template = builder.template();
+                sendResult(sender, "ItemBuilder", measure(new Task() {
+                    @Override
+                    public int run(int i) {
+                        return builder.build().getAmount();
+                    }
+                }, iterations), measure(new Task() {
+                    @Override
+                    public int run(int i) {
+                        return template.build().getAmount();
+                    }
+                }, iterations));
+                sendMessage(String.format("%sItem templates: %s%d %scached, %s%.1f%% %shit rate, %s%d %sevicted", ChatColor.GRAY, ChatColor.WHITE, ItemTemplates.getSize(), ChatColor.GRAY, ChatColor.WHITE, ItemTemplates.getHitRate() * 100, ChatColor.GRAY, ChatColor.WHITE, ItemTemplates.getEvictions(), ChatColor.GRAY), sender);
+            } catch (Throwable throwable) {
+                throwable.printStackTrace();
+                sendMessage(ChatColor.RED + "Benchmark failed, see console.", sender);
+            }
+        }
+
+    }
+
+}
@@ -65,7 +65,7 @@ public class ConfigurationFile {
         for (Map.Entry<ReflectionField, Object> entry : previous.entrySet()) {
             ReflectionField field = entry.getKey();
             Object value = entry.getValue();
-            Object currentValue = checkFieldValue(field.getValue().getObject());
+            Object currentValue = checkFieldValue(field.get());
             if (!jsonObject.containsKey(field.getName())) {
                 jsonObject.put(field.getName(), currentValue);
             } else {
@@ -119,7 +119,7 @@ public class ConfigurationFile {
         for (Field field : getClass().getDeclaredFields()) {
             if (isValidField(field.getModifiers()) && !Modifier.isFinal(field.getModifiers())) {
                 ReflectionField reflectionField = new ReflectionField(configurationType == ConfigurationType.STATIC ? null : this, field);
-                previous.put(reflectionField, reflectionField.getValue().getObject());
+                previous.put(reflectionField, reflectionField.get());
             }
         }
     }
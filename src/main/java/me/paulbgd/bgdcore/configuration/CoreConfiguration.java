@@ -14,4 +14,24 @@ public class CoreConfiguration extends ConfigurationFile {
 
     public static boolean debugMode = false;
 
+    // time, in milliseconds, that all pasters combined may use per tick
+    public static double pasteMinTickMillis = 2.0;
+    public static double pasteMaxTickMillis = 20.0;
+
+    // blocks pasted per tick, regardless of how much time is left
+    public static int pasteMinBlocksPerTick = 64;
+    public static int pasteMaxBlocksPerTick = 50000;
+
+    // how much of a chunk has to change in one go for it to be resent whole, instead of as block changes
+    public static double pasteChunkResendFraction = 0.25;
+
+    // kilobytes an undo journal may keep in memory before the rest is written to disk
+    public static int pasteJournalMemoryKb = 16384;
+
+    // chunk snapshots a capture may have waiting to be decoded before it stops snapshotting more
+    public static int captureMaxDecoding = 32;
+
+    // how many frozen item builders keep their built item around
+    public static int itemTemplateCacheSize = 512;
+
 }
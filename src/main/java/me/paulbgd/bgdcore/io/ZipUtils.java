@@ -1,6 +1,7 @@
 package me.paulbgd.bgdcore.io;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
@@ -10,6 +11,9 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 import java.util.zip.ZipOutputStream;
@@ -68,9 +72,7 @@ public class ZipUtils {
         ZipEntry entry = zipInputStream.getNextEntry();
         while (entry != null) {
             if (!entry.isDirectory()) {
-                byte[] bytes = new byte[zipInputStream.available()];
-                IOUtils.readFully(zipInputStream, bytes);
-                list.put(new ByteArrayInputStream(bytes), entry.getName());
+                list.put(new ByteArrayInputStream(IOUtils.toByteArray(zipInputStream)), entry.getName());
             }
             zipInputStream.closeEntry();
             entry = zipInputStream.getNextEntry();
@@ -94,4 +96,60 @@ public class ZipUtils {
         }
     }
 
+    /**
+     * Deflates bytes with a zlib header, which always starts with 0x78
+     *
+     * @param bytes the bytes
+     * @return the deflated bytes
+     */
+    public static byte[] deflate(byte[] bytes) {
+        Deflater deflater = new Deflater();
+        try {
+            deflater.setInput(bytes);
+            deflater.finish();
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream(Math.max(64, bytes.length / 2));
+            byte[] buffer = new byte[1024];
+            while (!deflater.finished()) {
+                outputStream.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return outputStream.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Inflates bytes made by {@link #deflate(byte[])}
+     *
+     * @param bytes     the deflated bytes
+     * @param maxLength the most bytes they may inflate to
+     * @return the bytes
+     * @throws IOException if they aren't deflated, or inflate to more than the maximum
+     */
+    public static byte[] inflate(byte[] bytes, int maxLength) throws IOException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(bytes);
+            // worked out as a long, a big enough input would overflow
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream((int) Math.min(maxLength, Math.max(64, bytes.length * 3L)));
+            byte[] buffer = new byte[1024];
+            int length = 0;
+            while (!inflater.finished()) {
+                int inflated = inflater.inflate(buffer);
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IOException("Deflated data ended early!");
+                } else if (inflated > maxLength - length) {
+                    throw new IOException("Deflated data inflates to more than " + maxLength + " bytes!");
+                }
+                length += inflated;
+                outputStream.write(buffer, 0, inflated);
+            }
+            return outputStream.toByteArray();
+        } catch (DataFormatException e) {
+            throw new IOException(e);
+        } finally {
+            inflater.end();
+        }
+    }
+
 }
@@ -0,0 +1,214 @@
+package me.paulbgd.bgdcore.items;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import me.paulbgd.bgdcore.io.ZipUtils;
+import me.paulbgd.bgdcore.nms.BGDNMS;
+import me.paulbgd.bgdcore.nms.NMSManager;
+import org.apache.commons.lang.Validate;
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+
+/**
+ * A whole inventory as NBT bytes, saved once per different stack. Runs of empty slots take a single entry.
+ * <p/>
+ * Only {@link #of(org.bukkit.inventory.ItemStack[])} and {@link #toItems()} touch items, and should be called on the
+ * main thread. {@link #encode()} and {@link #decode(byte[])} only work on bytes, so they can be called from anywhere.
+ */
+public class InventoryCodec {
+
+    private static final byte VERSION = 1;
+    /**
+     * The most slots an inventory can have, far more than any real one
+     */
+    public static final int MAX_SLOTS = 1024;
+    /**
+     * The most bytes a payload may inflate to
+     */
+    private static final int MAX_INFLATED = 16 * 1024 * 1024;
+
+    /**
+     * The stack in each slot, or -1 if it's empty
+     */
+    private final int[] slots;
+    /**
+     * Every different stack's NBT
+     */
+    private final List<byte[]> stacks;
+
+    private InventoryCodec(int[] slots, List<byte[]> stacks) {
+        this.slots = slots;
+        this.stacks = stacks;
+    }
+
+    /**
+     * Saves each different stack in an inventory to NBT
+     *
+     * @param items the inventory's contents, with null or air for empty slots. No more than {@link #MAX_SLOTS}.
+     * @return the saved inventory
+     */
+    public static InventoryCodec of(ItemStack[] items) {
+        Validate.isTrue(items.length <= MAX_SLOTS, "Inventories can't have more than " + MAX_SLOTS + " slots!");
+        BGDNMS nms = NMSManager.getNms();
+        int[] slots = new int[items.length];
+        List<byte[]> stacks = new ArrayList<>();
+        Map<ItemStack, Integer> seen = new HashMap<>();
+        Map<ByteBuffer, Integer> saved = new HashMap<>();
+        for (int i = 0; i < items.length; i++) {
+            ItemStack item = items[i];
+            if (item == null || item.getType() == Material.AIR) {
+                slots[i] = -1;
+                continue;
+            }
+            Integer index = seen.get(item);
+            if (index == null) {
+                byte[] nbt = nms.getItemBytes(item);
+                // stacks that aren't equal to bukkit can still save the same
+                ByteBuffer key = ByteBuffer.wrap(nbt);
+                index = saved.get(key);
+                if (index == null) {
+                    index = stacks.size();
+                    stacks.add(nbt);
+                    saved.put(key, index);
+                }
+                seen.put(item.clone(), index);
+            }
+            slots[i] = index;
+        }
+        return new InventoryCodec(slots, stacks);
+    }
+
+    /**
+     * Writes the inventory into one deflated payload
+     *
+     * @return the payload
+     */
+    public byte[] encode() {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(256);
+        DataOutputStream dataOutputStream = new DataOutputStream(outputStream);
+        try {
+            dataOutputStream.writeInt(slots.length);
+            dataOutputStream.writeInt(stacks.size());
+            for (byte[] stack : stacks) {
+                dataOutputStream.writeInt(stack.length);
+                dataOutputStream.write(stack);
+            }
+            for (int i = 0; i < slots.length; ) {
+                if (slots[i] == -1) {
+                    // a run of empty slots is written as how long it is, negated
+                    int start = i;
+                    while (i < slots.length && slots[i] == -1) {
+                        i++;
+                    }
+                    dataOutputStream.writeInt(start - i);
+                } else {
+                    dataOutputStream.writeInt(slots[i++]);
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // can't happen in memory
+        }
+        byte[] deflated = ZipUtils.deflate(outputStream.toByteArray());
+        byte[] payload = new byte[deflated.length + 1];
+        payload[0] = VERSION;
+        System.arraycopy(deflated, 0, payload, 1, deflated.length);
+        return payload;
+    }
+
+    /**
+     * Reads a payload written by {@link #encode()}
+     *
+     * @param payload the payload
+     * @return the saved inventory
+     * @throws IOException if the payload is broken or from a newer version
+     */
+    public static InventoryCodec decode(byte[] payload) throws IOException {
+        if (payload.length == 0 || payload[0] != VERSION) {
+            throw new IOException("Unknown inventory version " + (payload.length == 0 ? "(empty)" : payload[0]) + "!");
+        }
+        DataInputStream dataInputStream = new DataInputStream(new ByteArrayInputStream(ZipUtils.inflate(Arrays.copyOfRange(payload, 1, payload.length), MAX_INFLATED)));
+        int slotCount = dataInputStream.readInt(), size = dataInputStream.readInt();
+        if (slotCount < 0 || slotCount > MAX_SLOTS || size < 0 || size > slotCount) {
+            throw new IOException("Invalid inventory of " + slotCount + " slots and " + size + " stacks!");
+        }
+        int[] slots = new int[slotCount];
+        List<byte[]> stacks = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            int length = dataInputStream.readInt();
+            if (length < 0 || length > dataInputStream.available()) {
+                throw new IOException("Stack " + i + " is " + length + " bytes, more than is left!");
+            }
+            byte[] stack = new byte[length];
+            dataInputStream.readFully(stack);
+            stacks.add(stack);
+        }
+        for (int i = 0; i < slots.length; ) {
+            int entry = dataInputStream.readInt();
+            if (entry < 0) {
+                // compared before negating, as -Integer.MIN_VALUE overflows
+                if (entry < i - slots.length) {
+                    throw new IOException("Empty slots run past the end of the inventory!");
+                }
+                int run = -entry;
+                Arrays.fill(slots, i, i + run, -1);
+                i += run;
+            } else if (entry >= size) {
+                throw new IOException("Slot " + i + " has unknown stack " + entry + "!");
+            } else {
+                slots[i++] = entry;
+            }
+        }
+        return new InventoryCodec(slots, stacks);
+    }
+
+    /**
+     * Loads the inventory's items, each different stack only once
+     *
+     * @return the contents, with null for empty slots
+     */
+    public ItemStack[] toItems() {
+        BGDNMS nms = NMSManager.getNms();
+        ItemStack[] loaded = new ItemStack[stacks.size()];
+        ItemStack[] items = new ItemStack[slots.length];
+        for (int i = 0; i < slots.length; i++) {
+            int index = slots[i];
+            if (index == -1) {
+                continue;
+            }
+            if (loaded[index] == null) {
+                items[i] = loaded[index] = nms.getBukkitItem(stacks.get(index));
+            } else {
+                items[i] = loaded[index].clone();
+            }
+        }
+        return items;
+    }
+
+    /**
+     * Gets how many slots the inventory has
+     *
+     * @return the slots
+     */
+    public int getSize() {
+        return slots.length;
+    }
+
+    /**
+     * Gets how many different stacks the inventory has
+     *
+     * @return the different stacks
+     */
+    public int getUniqueStacks() {
+        return stacks.size();
+    }
+
+}
@@ -6,10 +6,13 @@
 package me.paulbgd.bgdcore.items;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import lombok.Getter;
+import me.paulbgd.bgdcore.nms.NMSManager;
+import net.minidev.json.JSONArray;
 import net.minidev.json.JSONObject;
 import org.bukkit.ChatColor;
 import org.bukkit.Color;
@@ -110,6 +113,18 @@ public class ItemBuilder {
     @Getter
     private JSONObject nbt = new JSONObject();
 
+    /**
+     * Checks if the built item is cached, see {@link #freeze()}.
+     *
+     * @return true, if frozen
+     */
+    @Getter
+    private boolean frozen = false;
+    /**
+     * What the built item is cached under while frozen, only worked out again after something's changed
+     */
+    private Object key = null;
+
     /**
      * Instantiates a new item builder.
      *
@@ -132,12 +147,13 @@ public class ItemBuilder {
         } else if (item.getType() == Material.SKULL_ITEM && data == (short) 3) {
             this.owner = ((SkullMeta) item.getItemMeta()).getOwner();
         }
-        TransitionItem transitionItem = ItemConverter.getItem(item);
-        if (transitionItem.getJsonObject().containsKey("BGDCore")) {
-            this.nbt = (JSONObject) transitionItem.getJsonObject().get("BGDCore");
+        // only read the parts of the tag we need, converting the whole item is slow
+        Map<String, Object> data = ItemConverter.getCustomData(item);
+        if (data != null) {
+            this.nbt = new JSONObject(data);
         }
-        if (transitionItem.isShiny()) {
-            // shiny :o
+        if (this.allEnchantments.isEmpty() && NMSManager.getNms().hasTagKey(item, "ench")) {
+            // shiny :o, only the empty list setShiny writes, real enchantments are read above
             this.shiny = true;
         }
     }
@@ -192,6 +208,7 @@ public class ItemBuilder {
      */
     public ItemBuilder setType(Material mat) {
         this.type = mat;
+        this.key = null;
         return this;
     }
 
@@ -203,6 +220,7 @@ public class ItemBuilder {
      */
     public ItemBuilder appendTitle(String appending) {
         this.title += appending;
+        this.key = null;
         return this;
     }
 
@@ -215,6 +233,7 @@ public class ItemBuilder {
      */
     public ItemBuilder appendTitle(String appending, ChatColor color) {
         this.title += color + "" + ChatColor.BOLD + appending;
+        this.key = null;
         return this;
     }
 
@@ -237,6 +256,7 @@ public class ItemBuilder {
      */
     public ItemBuilder setTitle(String title, ChatColor color) {
         this.title = color + "" + ChatColor.BOLD + title;
+        this.key = null;
         return this;
     }
 
@@ -249,6 +269,7 @@ public class ItemBuilder {
      */
     public ItemBuilder setLore(String lore, int index) {
         this.lore.set(index, lore);
+        this.key = null;
         return this;
     }
 
@@ -262,6 +283,7 @@ public class ItemBuilder {
         for (String line : lore) {
             this.lore.add(ChatColor.GRAY + line);
         }
+        this.key = null;
         return this;
     }
 
@@ -273,6 +295,7 @@ public class ItemBuilder {
      */
     public ItemBuilder setShiny(boolean shiny) {
         this.shiny = shiny;
+        this.key = null;
         return this;
     }
 
@@ -285,6 +308,7 @@ public class ItemBuilder {
      */
     public ItemBuilder addEnchantment(Enchantment enchant, int level) {
         allEnchantments.put(enchant, level);
+        this.key = null;
         return this;
     }
 
@@ -299,6 +323,7 @@ public class ItemBuilder {
             throw new IllegalArgumentException("Can only dye leather armor!");
         }
         this.color = color;
+        this.key = null;
         return this;
     }
 
@@ -313,6 +338,7 @@ public class ItemBuilder {
             this.type = Material.POTION;
         }
         this.potion = potion;
+        this.key = null;
         return this;
     }
 
@@ -335,6 +361,7 @@ public class ItemBuilder {
      */
     public ItemBuilder setOwner(String owner) {
         this.owner = owner;
+        this.key = null;
         return this;
     }
 
@@ -347,6 +374,7 @@ public class ItemBuilder {
      */
     public ItemBuilder putData(String key, Object value) {
         this.nbt.put(key, value);
+        this.key = null;
         return this;
     }
 
@@ -370,12 +398,78 @@ public class ItemBuilder {
         return getData(key) != null;
     }
 
+    /**
+     * Caches the built item. Every build after the first copies the cached item, as long as nothing's changed through
+     * this builder's methods. Changing the lists or maps from its getters isn't noticed. Meant for items that are built
+     * over and over, like ones in menus.
+     *
+     * @return the item builder
+     */
+    public ItemBuilder freeze() {
+        this.frozen = true;
+        this.key = getKey();
+        return this;
+    }
+
+    /**
+     * Makes a frozen copy of this builder, see {@link #freeze()}. This builder can still be changed without changing
+     * the copy.
+     *
+     * @return the frozen copy
+     */
+    public ItemBuilder template() {
+        ItemBuilder template = clone();
+        if (!frozen) {
+            template.lore = new ArrayList<>(lore);
+            template.allEnchantments = new HashMap<>(allEnchantments);
+            template.nbt = new JSONObject(nbt);
+        }
+        return template.freeze();
+    }
+
     /**
      * Builds the itemstack.
      *
      * @return the item stack
      */
     public ItemStack build() {
+        if (!frozen) {
+            return buildItem();
+        }
+        Object key = this.key;
+        if (key == null) {
+            key = this.key = getKey();
+        }
+        ItemStack template = ItemTemplates.get(key);
+        if (template == null) {
+            template = buildItem();
+            ItemTemplates.put(key, template);
+        }
+        ItemStack item = template.clone();
+        item.setAmount(amount);
+        return item;
+    }
+
+    /**
+     * Builds the itemstack with a different amount.
+     *
+     * @param amount the amount
+     * @return the item stack
+     */
+    public ItemStack build(int amount) {
+        ItemStack item = build();
+        item.setAmount(amount);
+        return item;
+    }
+
+    /**
+     * Gets everything that changes the built item besides the amount, to find its template
+     */
+    private Object getKey() {
+        return Arrays.asList(type, data, title, new ArrayList<>(lore), new HashMap<>(allEnchantments), color, potion, owner, shiny, nbt.toJSONString());
+    }
+
+    private ItemStack buildItem() {
         Material mat = this.type;
         if (mat == null) {
             mat = Material.AIR;
@@ -400,20 +494,17 @@ public class ItemBuilder {
             this.potion.apply(item);
         }
         if (!this.nbt.isEmpty() || (this.allEnchantments.size() == 0 && this.shiny)) {
-            TransitionItem transitionItem = ItemConverter.getItem(item);
-            JSONObject jsonObject = transitionItem.getJsonObject();
+            // written straight into the item's tag, instead of going through JSON and back
+            JSONObject values = new JSONObject();
             if (!this.nbt.isEmpty()) {
-                jsonObject.put("BGDCore", nbt);
+                values.put("BGDCore", nbt);
             }
-            if (this.shiny) {
-                if (!jsonObject.containsKey("tag")) {
-                    jsonObject.put("tag", new JSONObject());
-                }
-                JSONObject tag = (JSONObject) jsonObject.get("tag");
-                tag.put("ench", new ArrayList<>());
+            if (this.shiny && this.allEnchantments.size() == 0) {
+                JSONObject ench = new JSONObject();
+                ench.put("nbtTagList", new JSONArray());
+                values.put("ench", ench);
             }
-            transitionItem.setJsonObject(jsonObject);
-            item = transitionItem.asBukkitItem();
+            item = NMSManager.getNms().addToTag(item, values);
         }
         return item;
     }
@@ -434,6 +525,13 @@ public class ItemBuilder {
         newBuilder.owner = owner;
         newBuilder.shiny = shiny;
         newBuilder.nbt = nbt;
+        newBuilder.frozen = frozen;
+        if (frozen) {
+            // a frozen builder only notices its own changes, so the copy can't share anything it could change
+            newBuilder.lore = new ArrayList<>(lore);
+            newBuilder.allEnchantments = new HashMap<>(allEnchantments);
+            newBuilder.nbt = new JSONObject(nbt);
+        }
 
         return newBuilder;
     }
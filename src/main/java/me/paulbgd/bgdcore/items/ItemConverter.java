@@ -1,12 +1,18 @@
 package me.paulbgd.bgdcore.items;
 
+import java.io.IOException;
+import java.util.Map;
 import me.paulbgd.bgdcore.nms.NMSManager;
 import net.minidev.json.JSONObject;
+import org.bukkit.Material;
 import org.bukkit.inventory.ItemStack;
 
 public class ItemConverter {
 
     public static ItemStack convertToBukkit(TransitionItem transitionItem) {
+        if (transitionItem.isBinary()) {
+            return NMSManager.getNms().getBukkitItem(transitionItem.getBytes());
+        }
         return NMSManager.getNms().getBukkitItem(transitionItem);
     }
 
@@ -20,4 +26,88 @@ public class ItemConverter {
         return transitionItem;
     }
 
+    /**
+     * Saves an item as NBT bytes, which is smaller and faster to load than JSON. See {@link TransitionItem#toBytes(boolean)}.
+     *
+     * @param itemStack the item
+     * @return the item, only as bytes
+     */
+    public static TransitionItem getBinaryItem(ItemStack itemStack) {
+        TransitionItem transitionItem = new TransitionItem();
+        transitionItem.setBytes(NMSManager.getNms().getItemBytes(itemStack));
+        return transitionItem;
+    }
+
+    /**
+     * Reads an item saved as either JSON or base64, see {@link TransitionItem#fromString(String)}
+     *
+     * @param string the saved item
+     * @return the item
+     */
+    public static TransitionItem getItem(String string) {
+        return TransitionItem.fromString(string);
+    }
+
+    /**
+     * Saves a whole inventory into one payload. To save it off the main thread, use
+     * {@link InventoryCodec#of(org.bukkit.inventory.ItemStack[])} on the main thread and {@link InventoryCodec#encode()}
+     * anywhere.
+     *
+     * @param items the inventory's contents, with null or air for empty slots
+     * @return the payload
+     */
+    public static byte[] serializeInventory(ItemStack[] items) {
+        return InventoryCodec.of(items).encode();
+    }
+
+    /**
+     * Loads a whole inventory saved by {@link #serializeInventory(org.bukkit.inventory.ItemStack[])}. To read it off
+     * the main thread, use {@link InventoryCodec#decode(byte[])} anywhere and {@link InventoryCodec#toItems()} on the
+     * main thread.
+     *
+     * @param payload the payload
+     * @return the inventory's contents, with null for empty slots
+     */
+    public static ItemStack[] deserializeInventory(byte[] payload) {
+        try {
+            return InventoryCodec.decode(payload).toItems();
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Invalid inventory payload!", e);
+        }
+    }
+
+    /**
+     * Gets the values BGDCore put in an item's tag, such as from {@link ItemBuilder#putData(String, Object)}. Only that
+     * part of the item is read, and each value is only converted the first time it's used.
+     *
+     * @param itemStack the item
+     * @return the values, which can't be changed, or null if it has none
+     */
+    public static Map<String, Object> getCustomData(ItemStack itemStack) {
+        return NMSManager.getNms().getTagCompound(itemStack, "BGDCore");
+    }
+
+    /**
+     * Gets one value BGDCore put in an item's tag, see {@link #getCustomData(org.bukkit.inventory.ItemStack)}
+     *
+     * @param itemStack the item
+     * @param key       the value's key
+     * @return the value, or null if it doesn't have it
+     */
+    public static Object getCustomData(ItemStack itemStack, String key) {
+        Map<String, Object> data = getCustomData(itemStack);
+        return data == null ? null : data.get(key);
+    }
+
+    /**
+     * Checks if BGDCore put anything in an item's tag, without converting any of it. Meant for finding custom items in
+     * listeners.
+     *
+     * @param itemStack the item
+     * @return true, if it has
+     */
+    public static boolean hasCustomTag(ItemStack itemStack) {
+        return itemStack != null && itemStack.getType() != Material.AIR && NMSManager.getNms().hasTagKey(itemStack, "BGDCore");
+    }
+
 }
@@ -0,0 +1,177 @@
+package me.paulbgd.bgdcore.items;
+
+import com.google.common.base.Charsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import lombok.Getter;
+import org.apache.commons.lang.Validate;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.plugin.Plugin;
+
+/**
+ * Custom items, found by a fingerprint stored in their BGDCore data. The fingerprint only depends on the plugin and the
+ * item's id, so items given out before a definition changed are still found after.
+ * <p/>
+ * Resolving an item only reads its fingerprint, see {@link ItemConverter#getCustomData(org.bukkit.inventory.ItemStack)}.
+ */
+public class ItemRegistry {
+
+    /**
+     * The key the fingerprint is stored under in {@link ItemBuilder#putData(String, Object)}
+     */
+    public static final String KEY = "fingerprint";
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L, FNV_PRIME = 0x100000001b3L;
+
+    private static final ConcurrentMap<Long, Definition> definitions = new ConcurrentHashMap<>();
+
+    /**
+     * Registers a custom item, replacing any the plugin registered with the same id
+     *
+     * @param plugin  the plugin the item belongs to
+     * @param id      the item's id, which shouldn't change between versions
+     * @param builder the item
+     * @return a frozen copy of the builder with the fingerprint added, which should be used to make the item
+     * @throws IllegalArgumentException if another item already has the same fingerprint
+     */
+    public static ItemBuilder register(Plugin plugin, String id, ItemBuilder builder) {
+        Validate.notNull(builder, "Builder can't be null!");
+        String name = getName(plugin, id);
+        long fingerprint = getFingerprint(name);
+        ItemBuilder template = builder.template().putData(KEY, fingerprint);
+        Definition definition = new Definition(name, fingerprint, template);
+        Definition existing = definitions.putIfAbsent(fingerprint, definition);
+        if (existing != null) {
+            if (!existing.getName().equals(name)) {
+                throw new IllegalArgumentException("Item " + name + " has the same fingerprint as " + existing.getName() + "!");
+            }
+            definitions.put(fingerprint, definition);
+        }
+        return template;
+    }
+
+    /**
+     * Removes a custom item, so it's no longer resolved
+     *
+     * @param plugin the plugin the item belongs to
+     * @param id     the item's id
+     * @return true, if it was registered
+     */
+    public static boolean unregister(Plugin plugin, String id) {
+        String name = getName(plugin, id);
+        Definition definition = definitions.get(getFingerprint(name));
+        return definition != null && definition.getName().equals(name) && definitions.remove(definition.getFingerprint(), definition);
+    }
+
+    /**
+     * Removes every custom item a plugin registered, such as when it's disabled
+     *
+     * @param plugin the plugin
+     */
+    public static void unregisterAll(Plugin plugin) {
+        String prefix = plugin.getName() + ":";
+        for (Map.Entry<Long, Definition> entry : definitions.entrySet()) {
+            if (entry.getValue().getName().startsWith(prefix)) {
+                definitions.remove(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Finds which custom item an item is
+     *
+     * @param itemStack the item
+     * @return the item's definition, or null if it isn't a registered custom item
+     */
+    public static Definition resolve(ItemStack itemStack) {
+        if (!ItemConverter.hasCustomTag(itemStack)) {
+            return null;
+        }
+        Object fingerprint = ItemConverter.getCustomData(itemStack, KEY);
+        return fingerprint instanceof Number ? definitions.get(((Number) fingerprint).longValue()) : null;
+    }
+
+    /**
+     * Checks if an item is a certain custom item
+     *
+     * @param itemStack the item
+     * @param plugin    the plugin the custom item belongs to
+     * @param id        the custom item's id
+     * @return true, if it is
+     */
+    public static boolean is(ItemStack itemStack, Plugin plugin, String id) {
+        Definition definition = resolve(itemStack);
+        return definition != null && definition.getName().equals(getName(plugin, id));
+    }
+
+    /**
+     * Gets the fingerprint a custom item would have
+     *
+     * @param plugin the plugin the item belongs to
+     * @param id     the item's id
+     * @return the fingerprint
+     */
+    public static long getFingerprint(Plugin plugin, String id) {
+        return getFingerprint(getName(plugin, id));
+    }
+
+    public static int getSize() {
+        return definitions.size();
+    }
+
+    private static String getName(Plugin plugin, String id) {
+        Validate.notNull(plugin, "Plugin can't be null!");
+        Validate.notEmpty(id, "Id can't be empty!");
+        return plugin.getName() + ":" + id;
+    }
+
+    /**
+     * 64 bit FNV-1a, which never changes between versions or servers unlike {@link String#hashCode()} might
+     */
+    private static long getFingerprint(String name) {
+        long hash = FNV_OFFSET;
+        for (byte b : name.getBytes(Charsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+
+    /**
+     * A registered custom item
+     */
+    public static class Definition {
+
+        /**
+         * The plugin's name and the item's id, split by a colon
+         */
+        @Getter
+        private final String name;
+        @Getter
+        private final long fingerprint;
+        /**
+         * The frozen builder the item is made with
+         */
+        @Getter
+        private final ItemBuilder builder;
+
+        private Definition(String name, long fingerprint, ItemBuilder builder) {
+            this.name = name;
+            this.fingerprint = fingerprint;
+            this.builder = builder;
+        }
+
+        /**
+         * Makes the custom item
+         *
+         * @param amount the amount
+         * @return the item
+         */
+        public ItemStack build(int amount) {
+            return builder.build(amount);
+        }
+
+    }
+
+}
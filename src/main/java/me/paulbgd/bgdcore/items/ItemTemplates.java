@@ -0,0 +1,86 @@
+package me.paulbgd.bgdcore.items;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import me.paulbgd.bgdcore.configuration.CoreConfiguration;
+import org.bukkit.inventory.ItemStack;
+
+/**
+ * The items built by frozen {@link ItemBuilder}s, keyed by everything the builder had set. Only the
+ * {@link CoreConfiguration#itemTemplateCacheSize} most recently used are kept.
+ */
+public class ItemTemplates {
+
+    private static final Map<Object, ItemStack> templates = new LinkedHashMap<Object, ItemStack>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Object, ItemStack> eldest) {
+            if (size() > CoreConfiguration.itemTemplateCacheSize) {
+                evictions.incrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    };
+
+    private static final AtomicLong hits = new AtomicLong(), misses = new AtomicLong(), evictions = new AtomicLong();
+
+    /**
+     * Gets the item built for a key
+     *
+     * @param key the builder's state
+     * @return the item, which must not be changed, or null if it hasn't been built
+     */
+    static ItemStack get(Object key) {
+        ItemStack template;
+        synchronized (templates) {
+            template = templates.get(key);
+        }
+        (template == null ? misses : hits).incrementAndGet();
+        return template;
+    }
+
+    static void put(Object key, ItemStack template) {
+        synchronized (templates) {
+            templates.put(key, template);
+        }
+    }
+
+    /**
+     * Forgets every template, such as after the items they'd make have changed
+     */
+    public static void clear() {
+        synchronized (templates) {
+            templates.clear();
+        }
+    }
+
+    public static int getSize() {
+        synchronized (templates) {
+            return templates.size();
+        }
+    }
+
+    public static long getHits() {
+        return hits.get();
+    }
+
+    public static long getMisses() {
+        return misses.get();
+    }
+
+    public static long getEvictions() {
+        return evictions.get();
+    }
+
+    /**
+     * Gets how many builds used a template, out of all frozen builds
+     *
+     * @return the hit rate, from 0 to 1
+     */
+    public static double getHitRate() {
+        long hits = getHits(), total = hits + getMisses();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+}
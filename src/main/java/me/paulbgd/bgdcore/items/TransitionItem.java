@@ -1,27 +1,145 @@
 package me.paulbgd.bgdcore.items;
 
-import lombok.Getter;
-import lombok.Setter;
+import java.io.IOException;
+import javax.xml.bind.DatatypeConverter;
+import me.paulbgd.bgdcore.io.ZipUtils;
+import me.paulbgd.bgdcore.nms.NMSManager;
 import net.minidev.json.JSONObject;
 import net.minidev.json.JSONStyle;
+import net.minidev.json.JSONValue;
 import org.bukkit.inventory.ItemStack;
 
+/**
+ * An item saved outside of the server, either as JSON or as the raw NBT Minecraft itself saves. Items loaded from
+ * bytes are only turned into JSON if {@link #getJsonObject()} is called.
+ */
 public class TransitionItem {
 
-    @Getter
-    @Setter
+    /**
+     * Uncompressed NBT always starts with the compound's id, deflated NBT never does
+     */
+    private static final byte COMPOUND = 10;
+    /**
+     * The most bytes of NBT an item may inflate to, the same limit Minecraft reads NBT with
+     */
+    private static final int MAX_NBT = 2097152;
+
     private JSONObject jsonObject;
+    private byte[] nbt;
 
     public ItemStack asBukkitItem() {
         return ItemConverter.convertToBukkit(this);
     }
 
+    public JSONObject getJsonObject() {
+        if (jsonObject == null && nbt != null) {
+            jsonObject = NMSManager.getNms().nbtToJSON(NMSManager.getNms().bytesToNBT(nbt));
+            nbt = null; // the JSON could be changed now, so the bytes may not match
+        }
+        return jsonObject;
+    }
+
+    public void setJsonObject(JSONObject jsonObject) {
+        this.jsonObject = jsonObject;
+        this.nbt = null;
+    }
+
+    /**
+     * Gets the item's uncompressed NBT
+     *
+     * @return the NBT bytes
+     * @throws IllegalStateException if the item has neither NBT nor JSON, such as an empty one
+     */
+    public byte[] getBytes() {
+        if (nbt != null) {
+            return nbt;
+        } else if (jsonObject == null) {
+            throw new IllegalStateException("Item has no NBT or JSON to save!");
+        }
+        return NMSManager.getNms().nbtToBytes(NMSManager.getNms().jsonToNBT(jsonObject));
+    }
+
+    /**
+     * Sets the item's uncompressed NBT, replacing its JSON
+     *
+     * @param nbt the NBT bytes
+     */
+    public void setBytes(byte[] nbt) {
+        this.nbt = nbt;
+        this.jsonObject = null;
+    }
+
+    /**
+     * Checks if this item is still only bytes, so it can be loaded without any JSON
+     *
+     * @return true, if it is
+     */
+    public boolean isBinary() {
+        return nbt != null;
+    }
+
+    /**
+     * Gets the item's NBT, see {@link #fromBytes(byte[])} to read it again
+     *
+     * @param deflate whether to deflate it, which is worth it for items with lots of text
+     * @return the bytes
+     */
+    public byte[] toBytes(boolean deflate) {
+        byte[] bytes = getBytes();
+        return deflate ? ZipUtils.deflate(bytes) : bytes;
+    }
+
+    /**
+     * Gets the item's deflated NBT as base64, for storing inside JSON or configs. See {@link #fromString(String)} to
+     * read it again.
+     *
+     * @return the base64
+     */
+    public String toBase64() {
+        return DatatypeConverter.printBase64Binary(toBytes(true));
+    }
+
     public String toString() {
-        return jsonObject.toJSONString(JSONStyle.MAX_COMPRESS);
+        return getJsonObject().toJSONString(JSONStyle.MAX_COMPRESS);
     }
 
     public boolean isShiny() {
-        return jsonObject.containsKey("ench");
+        JSONObject jsonObject = getJsonObject();
+        JSONObject tag = (JSONObject) jsonObject.get("tag");
+        return (tag != null && tag.containsKey("ench")) || jsonObject.containsKey("ench");
+    }
+
+    /**
+     * Reads an item from {@link #toBytes(boolean)}, deflated or not
+     *
+     * @param bytes the bytes
+     * @return the item
+     */
+    public static TransitionItem fromBytes(byte[] bytes) {
+        if (bytes.length > 0 && bytes[0] != COMPOUND) {
+            try {
+                bytes = ZipUtils.inflate(bytes, MAX_NBT);
+            } catch (IOException e) {
+                throw new IllegalArgumentException("Item bytes are neither NBT nor deflated NBT!", e);
+            }
+        }
+        TransitionItem transitionItem = new TransitionItem();
+        transitionItem.setBytes(bytes);
+        return transitionItem;
+    }
+
+    /**
+     * Reads an item from either {@link #toString()} or {@link #toBase64()}
+     *
+     * @param string the JSON or base64
+     * @return the item
+     */
+    public static TransitionItem fromString(String string) {
+        String trimmed = string.trim();
+        if (trimmed.startsWith("{")) {
+            return ItemConverter.getItem((JSONObject) JSONValue.parse(trimmed));
+        }
+        return fromBytes(DatatypeConverter.parseBase64Binary(trimmed));
     }
 
 }
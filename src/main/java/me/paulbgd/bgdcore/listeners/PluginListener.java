@@ -0,0 +1,20 @@
+package me.paulbgd.bgdcore.listeners;
+
+import me.paulbgd.bgdcore.reflection.FieldAccessor;
+import me.paulbgd.bgdcore.reflection.MemberCache;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.server.PluginDisableEvent;
+
+public class PluginListener implements Listener {
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPluginDisable(PluginDisableEvent event) {
+        // the reflection caches would otherwise keep the plugin's classes loaded after a reload
+        ClassLoader classLoader = event.getPlugin().getClass().getClassLoader();
+        MemberCache.clear(classLoader);
+        FieldAccessor.clear(classLoader);
+    }
+
+}
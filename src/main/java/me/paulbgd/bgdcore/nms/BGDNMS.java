@@ -1,5 +1,9 @@
 package me.paulbgd.bgdcore.nms;
 
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import me.paulbgd.bgdcore.blocks.Cuboid;
 import me.paulbgd.bgdcore.items.TransitionItem;
 import me.paulbgd.bgdcore.reflection.ReflectionObject;
 import net.minidev.json.JSONObject;
@@ -11,6 +15,116 @@ public interface BGDNMS {
 
     public boolean setBlock(World world, int x, int y, int z, Material type, short data);
 
+    /**
+     * Sets a block without physics.
+     *
+     * @param world  the world
+     * @param x      the x
+     * @param y      the y
+     * @param z      the z
+     * @param type   the block type
+     * @param data   the block data
+     * @param notify if players should be sent the change. If not, it should be sent later with
+     *               {@link #sendChanges(org.bukkit.World, int, int, java.util.BitSet)}.
+     * @return if the block was changed
+     */
+    public boolean setBlock(World world, int x, int y, int z, Material type, short data, boolean notify);
+
+    /**
+     * Gets the NMS block for an id. Blocks are only looked up once, and this is safe to call from any thread.
+     *
+     * @param id the block id
+     * @return the NMS block, or null if there isn't one
+     */
+    public Object getBlock(int id);
+
+    /**
+     * Writes blocks straight into a chunk's sections, skipping physics and per block lighting and updates. The chunk is
+     * then marked dirty, relit and sent to players once.
+     *
+     * @param world  the world
+     * @param chunkX the chunk x
+     * @param chunkZ the chunk z
+     * @param blocks the blocks to write
+     * @return how many blocks were written
+     */
+    public int setBlocks(World world, int chunkX, int chunkZ, PackedChunk blocks);
+
+    /**
+     * Writes blocks straight into a chunk's sections, see {@link #setBlocks(org.bukkit.World, int, int, PackedChunk)}.
+     *
+     * @param world  the world
+     * @param chunkX the chunk x
+     * @param chunkZ the chunk z
+     * @param blocks the blocks to write
+     * @param update if the chunk should be relit and the changes sent. If not,
+     *               {@link #relightChunk(org.bukkit.World, int, int)} and {@link #sendChanges(org.bukkit.World, int, int, java.util.BitSet)}
+     *               should be called once done with the chunk.
+     * @return how many blocks were written
+     */
+    public int setBlocks(World world, int chunkX, int chunkZ, PackedChunk blocks, boolean update);
+
+    /**
+     * Recalculates the height map and sky light of a chunk and marks it to be saved.
+     *
+     * @param world  the world
+     * @param chunkX the chunk x
+     * @param chunkZ the chunk z
+     */
+    public void relightChunk(World world, int chunkX, int chunkZ);
+
+    /**
+     * Sends changed blocks to the players that can see them, one multi block change packet per section. If more than
+     * {@link me.paulbgd.bgdcore.configuration.CoreConfiguration#pasteChunkResendFraction} of the chunk changed, the
+     * whole chunk is sent instead.
+     *
+     * @param world   the world
+     * @param chunkX  the chunk x
+     * @param chunkZ  the chunk z
+     * @param changed the blocks that changed, indexed by y << 8 | z << 4 | x
+     */
+    public void sendChanges(World world, int chunkX, int chunkZ, BitSet changed);
+
+    /**
+     * Writes a cuboid of blocks, a chunk at a time with {@link #setBlocks(org.bukkit.World, int, int, PackedChunk, boolean)}.
+     *
+     * @param world  the world
+     * @param region the blocks to write
+     * @param ids    the block ids, indexed by {@link me.paulbgd.bgdcore.blocks.Cuboid#getIndex(int, int, int)}. Negative
+     *               ids are left alone.
+     * @param data   the block data, indexed the same way. Can be null for no data.
+     * @param update if the chunks should be relit and the changes sent
+     * @return how many blocks were written
+     */
+    public int setBlocks(World world, Cuboid region, short[] ids, byte[] data, boolean update);
+
+    /**
+     * Reads the ids of a cuboid of blocks straight from the chunk sections. Must be called on the main thread.
+     *
+     * @param world  the world
+     * @param region the blocks to read, anything outside of the world's height is read as air
+     * @param out    where to put the ids, indexed by {@link me.paulbgd.bgdcore.blocks.Cuboid#getIndex(int, int, int)}
+     */
+    public void getIds(World world, Cuboid region, short[] out);
+
+    /**
+     * Reads the data of a cuboid of blocks straight from the chunk sections. Must be called on the main thread.
+     *
+     * @param world  the world
+     * @param region the blocks to read, anything outside of the world's height is read as 0
+     * @param out    where to put the data, indexed by {@link me.paulbgd.bgdcore.blocks.Cuboid#getIndex(int, int, int)}
+     */
+    public void getData(World world, Cuboid region, byte[] out);
+
+    /**
+     * Gets every TileEntity in a cuboid. Must be called on the main thread.
+     *
+     * @param world  the world
+     * @param region the blocks to look in
+     * @return the NMS TileEntities, keyed by {@link me.paulbgd.bgdcore.blocks.Cuboid#getIndex(int, int, int)}
+     */
+    public Map<Integer, Object> getTileEntities(World world, Cuboid region);
+
     public ReflectionObject getTileEntity(World world, int x, int y, int z);
     public void setTileEntity(World world, int x, int y, int z, Object object);
 
@@ -18,12 +132,80 @@ public interface BGDNMS {
 
     public short getData(World world, int x, int y, int z);
 
+    /**
+     * Finds every NMS member this version uses, so none have to be found later. Must be called on the main thread,
+     * as some of them are checked against the world.
+     *
+     * @return the members that couldn't be found, empty if all of them were
+     */
+    public List<String> verify();
+
     public TransitionItem getItem(ItemStack itemStack);
 
     public ItemStack getBukkitItem(TransitionItem transitionItem);
 
+    /**
+     * Saves an item straight to uncompressed NBT bytes, without going through JSON
+     *
+     * @param itemStack the item
+     * @return the item's NBT, the same as {@link #nbtToBytes(Object)} gives for it
+     */
+    public byte[] getItemBytes(ItemStack itemStack);
+
+    /**
+     * Loads an item straight from uncompressed NBT bytes, see {@link #getItemBytes(org.bukkit.inventory.ItemStack)}
+     *
+     * @param nbt the item's NBT
+     * @return the item
+     */
+    public ItemStack getBukkitItem(byte[] nbt);
+
+    /**
+     * Copies an item with some values put in its tag, converting it to NMS only once
+     *
+     * @param itemStack the item
+     * @param values    the values to put in the tag, converted the same way as {@link #jsonToNBT(net.minidev.json.JSONObject)}
+     * @return the new item
+     */
+    public ItemStack addToTag(ItemStack itemStack, JSONObject values);
+
+    /**
+     * Checks if an item's tag has a key, without converting the item
+     *
+     * @param itemStack the item
+     * @param key       the key
+     * @return true, if it has the key
+     */
+    public boolean hasTagKey(ItemStack itemStack, String key);
+
+    /**
+     * Reads a compound in an item's tag, without converting the rest of the item. Each value is only converted to JSON,
+     * the same way as {@link #nbtToJSON(Object)}, the first time it's read.
+     *
+     * @param itemStack the item
+     * @param name      the compound's key in the tag
+     * @return the compound's values, which can't be changed, or null if the item doesn't have the compound
+     */
+    public Map<String, Object> getTagCompound(ItemStack itemStack, String name);
+
     public Object jsonToNBT(JSONObject jsonObject);
 
     public JSONObject nbtToJSON(Object nbt);
 
+    /**
+     * Writes an NBTTagCompound the way Minecraft does, without any compression
+     *
+     * @param nbt the NBTTagCompound
+     * @return the bytes
+     */
+    public byte[] nbtToBytes(Object nbt);
+
+    /**
+     * Reads an NBTTagCompound written by {@link #nbtToBytes(Object)}
+     *
+     * @param bytes the bytes
+     * @return the NBTTagCompound
+     */
+    public Object bytesToNBT(byte[] bytes);
+
 }
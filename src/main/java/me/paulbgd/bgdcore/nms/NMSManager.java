@@ -1,19 +1,45 @@
 package me.paulbgd.bgdcore.nms;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.WeakHashMap;
-import lombok.Getter;
 import me.paulbgd.bgdcore.BGDCore;
 import me.paulbgd.bgdcore.nms.versions.v1_7_R1;
 import me.paulbgd.bgdcore.nms.versions.v1_7_R4;
+import me.paulbgd.bgdcore.reflection.NMSReflection;
 import me.paulbgd.bgdcore.reflection.Reflection;
 
 public class NMSManager {
 
-    @Getter
-    private static final BGDNMS nms;
+    /**
+     * Gets the NMS adapter for this server's version, loading it the first time
+     *
+     * @return the adapter, or null if it couldn't be loaded
+     */
+    public static BGDNMS getNms() {
+        return Holder.nms;
+    }
+
+    /**
+     * Loads the NMS adapter and finds everything it and {@link NMSReflection} use, so nothing has to be found while the
+     * server is running. Must be called on the main thread, as the adapter calls into Minecraft. Only
+     * {@link NMSReflection#resolveAll()} is safe to call first from another thread.
+     *
+     * @return what couldn't be found, empty if everything was
+     */
+    public static List<String> verify() {
+        List<String> missing = new ArrayList<>(NMSReflection.resolveAll());
+        BGDNMS nms = getNms();
+        if (nms == null) {
+            missing.add("NMS version " + Reflection.getVersion());
+        } else {
+            missing.addAll(nms.verify());
+        }
+        return missing;
+    }
 
-    static {
+    private static BGDNMS load() {
         // these are here so that we can discard the references when this is all over
         Class<?>[] registered = new Class<?>[]{v1_7_R1.class, v1_7_R4.class};
         WeakHashMap<Integer, Class<?>> versions = new WeakHashMap<>(registered.length); // weakling
@@ -44,12 +70,21 @@ public class NMSManager {
         } catch (InstantiationException | IllegalAccessException e1) {
             BGDCore.getLogging().severe("Failed to initialize NMS! " + e1.getClass().getSimpleName());
         }
-        nms = toSet;
-        if (nms == null) {
+        if (toSet == null) {
             BGDCore.getLogging().severe("Failed to load NMS version " + version + "! Things may not work right.");
         } else {
             BGDCore.getLogging().info("Loaded NMS version " + nmsClass.getSimpleName() + "!");
         }
+        return toSet;
+    }
+
+    /**
+     * Loads the adapter when it's first asked for
+     */
+    private static class Holder {
+
+        private static final BGDNMS nms = load();
+
     }
 
     private static int getVersion(String string) {
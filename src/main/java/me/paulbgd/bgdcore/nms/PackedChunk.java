@@ -0,0 +1,194 @@
+package me.paulbgd.bgdcore.nms;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * A set of block changes for a single chunk column, stored the same way Minecraft stores its chunk sections. Each value
+ * is the id and data packed into an int, or {@link #UNSET} if that block should be left alone.
+ */
+public class PackedChunk {
+
+    public static final int UNSET = -1;
+
+    private final int[][] sections = new int[16][];
+    private int size = 0;
+
+    /**
+     * Packs an id and data into a single value
+     *
+     * @param id   the block id
+     * @param data the block data
+     * @return the packed value
+     */
+    public static int pack(int id, int data) {
+        return id << 4 | data & 0xF;
+    }
+
+    public static int getId(int packed) {
+        return packed >>> 4;
+    }
+
+    public static int getData(int packed) {
+        return packed & 0xF;
+    }
+
+    /**
+     * Gets the index of a block inside of its section, the same index Minecraft uses.
+     *
+     * @param x the x, only the lowest 4 bits are used
+     * @param y the y, only the lowest 4 bits are used
+     * @param z the z, only the lowest 4 bits are used
+     * @return the index
+     */
+    public static int getIndex(int x, int y, int z) {
+        return (y & 0xF) << 8 | (z & 0xF) << 4 | x & 0xF;
+    }
+
+    /**
+     * Sets a block. The x and z can be world coordinates, as only the position inside of the chunk is used.
+     *
+     * @param x    the x
+     * @param y    the y, from 0 to 255
+     * @param z    the z
+     * @param id   the block id
+     * @param data the block data
+     */
+    public void set(int x, int y, int z, int id, int data) {
+        int[] section = sections[y >> 4];
+        if (section == null) {
+            section = new int[4096];
+            Arrays.fill(section, UNSET);
+            sections[y >> 4] = section;
+        }
+        int index = getIndex(x, y, z);
+        if (section[index] == UNSET) {
+            size++;
+        }
+        section[index] = pack(id, data);
+    }
+
+    /**
+     * Sets every block in a box. The x and z can be world coordinates, as long as the box is inside of this chunk.
+     *
+     * @param minX the lowest x
+     * @param minY the lowest y, from 0 to 255
+     * @param minZ the lowest z
+     * @param maxX the highest x
+     * @param maxY the highest y, from 0 to 255
+     * @param maxZ the highest z
+     * @param id   the block id
+     * @param data the block data
+     */
+    public void fill(int minX, int minY, int minZ, int maxX, int maxY, int maxZ, int id, int data) {
+        int value = pack(id, data), fromX = minX & 0xF, toX = (maxX & 0xF) + 1;
+        for (int y = minY; y <= maxY; y++) {
+            int[] section = sections[y >> 4];
+            if (section == null) {
+                section = new int[4096];
+                Arrays.fill(section, UNSET);
+                sections[y >> 4] = section;
+            }
+            for (int z = minZ; z <= maxZ; z++) {
+                int row = getIndex(0, y, z);
+                for (int x = fromX; x < toX; x++) {
+                    if (section[row | x] == UNSET) {
+                        size++;
+                    }
+                }
+                Arrays.fill(section, row | fromX, row + toX, value);
+            }
+        }
+    }
+
+    /**
+     * Leaves a block alone again
+     *
+     * @param x the x
+     * @param y the y, from 0 to 255
+     * @param z the z
+     */
+    public void clear(int x, int y, int z) {
+        int[] section = sections[y >> 4];
+        if (section != null && section[getIndex(x, y, z)] != UNSET) {
+            section[getIndex(x, y, z)] = UNSET;
+            size--;
+        }
+    }
+
+    /**
+     * Gets the packed value of a block
+     *
+     * @param x the x
+     * @param y the y, from 0 to 255
+     * @param z the z
+     * @return the packed value, or {@link #UNSET}
+     */
+    public int get(int x, int y, int z) {
+        int[] section = sections[y >> 4];
+        return section == null ? UNSET : section[getIndex(x, y, z)];
+    }
+
+    /**
+     * Gets the packed values of a section, indexed with {@link #getIndex(int, int, int)}
+     *
+     * @param section the section, from 0 to 15
+     * @return the values, or null if nothing is set in the section
+     */
+    public int[] getSection(int section) {
+        return sections[section];
+    }
+
+    /**
+     * Checks if a section only sets air
+     *
+     * @param section the section, from 0 to 15
+     * @return true if there's nothing but air or nothing at all
+     */
+    public boolean isAir(int section) {
+        int[] values = sections[section];
+        if (values != null) {
+            for (int value : values) {
+                if (value != UNSET && getId(value) != 0) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gets every block that is set
+     *
+     * @return the blocks, indexed by y << 8 | z << 4 | x
+     */
+    public BitSet getIndexes() {
+        BitSet indexes = new BitSet(65536);
+        for (int section = 0; section < sections.length; section++) {
+            int[] values = sections[section];
+            if (values == null) {
+                continue;
+            }
+            for (int index = 0; index < values.length; index++) {
+                if (values[index] != UNSET) {
+                    indexes.set(section << 12 | index);
+                }
+            }
+        }
+        return indexes;
+    }
+
+    /**
+     * Gets how many blocks are set
+     *
+     * @return the amount of blocks
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+}
@@ -1,64 +1,541 @@
 package me.paulbgd.bgdcore.nms.versions;
 
+import com.google.common.base.Throwables;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.WrongMethodTypeException;
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Method;
+import java.util.AbstractMap;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import me.paulbgd.bgdcore.BGDCore;
+import me.paulbgd.bgdcore.blocks.Cuboid;
+import me.paulbgd.bgdcore.configuration.CoreConfiguration;
 import me.paulbgd.bgdcore.items.TransitionItem;
 import me.paulbgd.bgdcore.nms.BGDNMS;
+import me.paulbgd.bgdcore.nms.PackedChunk;
 import me.paulbgd.bgdcore.reflection.NMSReflection;
+import me.paulbgd.bgdcore.reflection.Reflection;
+import me.paulbgd.bgdcore.reflection.ReflectionClass;
 import me.paulbgd.bgdcore.reflection.ReflectionMethod;
 import me.paulbgd.bgdcore.reflection.ReflectionObject;
 import net.minidev.json.JSONArray;
 import net.minidev.json.JSONObject;
 import org.apache.commons.lang.Validate;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
 import org.bukkit.Material;
 import org.bukkit.World;
+import org.bukkit.block.BlockState;
+import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
 
 public class v1_7_R1 implements BGDNMS {
 
+    private final Object[] blocks = new Object[4096];
+
     @Override
     public boolean setBlock(World world, int x, int y, int z, Material type, short data) {
-        ReflectionObject nmsWorld = new ReflectionObject(world).getMethod("getHandle").invoke();
-        ReflectionMethod setTypeAndData = NMSReflection.nmsWorld.getMethod(nmsWorld, "setTypeAndData", new Class[]{int.class, int.class, int.class, NMSReflection.nmsBlock.getClazz(), int.class, int.class});
-        ReflectionMethod getNMSBlock = NMSReflection.nmsBlock.getStaticMethod("e", type.getId());
+        return setBlock(world, x, y, z, type, data, true);
+    }
+
+    @Override
+    public boolean setBlock(World world, int x, int y, int z, Material type, short data, boolean notify) {
+        if (WorldAccess.setTypeAndData != null) {
+            try {
+                return (boolean) WorldAccess.setTypeAndData.invokeExact(WorldAccess.getHandle(world), x, y, z, getBlock(type.getId()), (int) data, notify ? 2 : 0);
+            } catch (Throwable throwable) {
+                BGDCore.debug("Failed to set block with NMS! Doing bukkit.");
+            }
+        }
+        return world.getBlockAt(x, y, z).setTypeIdAndData(type.getId(), (byte) data, false);
+    }
+
+    @Override
+    public Object getBlock(int id) {
+        if (id < 0 || id >= blocks.length) {
+            return null;
+        }
+        Object block = blocks[id];
+        if (block == null) {
+            // looking it up twice at once does no harm, both get the same block
+            block = blocks[id] = findBlock(id);
+        }
+        return block;
+    }
+
+    protected Object findBlock(int id) {
+        return NMSReflection.nmsBlock.getStaticMethod("e", id).invoke(id).getObject();
+    }
+
+    @Override
+    public int setBlocks(World world, int chunkX, int chunkZ, PackedChunk blocks) {
+        return setBlocks(world, chunkX, chunkZ, blocks, true);
+    }
+
+    @Override
+    public int setBlocks(World world, int chunkX, int chunkZ, PackedChunk blocks, boolean update) {
+        if (blocks.isEmpty()) {
+            return 0;
+        }
+        int written;
         try {
-            return (boolean) setTypeAndData.invoke(x, y, z, getNMSBlock.invoke(type.getId()).getObject(), (int) data, 2).getObject();
-        } catch (Exception e) {
-            BGDCore.debug("Failed to set block with NMS! Doing bukkit.");
+            written = writeSections(world, chunkX, chunkZ, blocks, update);
+        } catch (ReflectiveOperationException e) {
+            // nothing has been written yet
+            BGDCore.debug("Failed to write chunk sections with NMS! Doing it block by block. " + e);
+            written = setBlocksSlowly(world, chunkX, chunkZ, blocks, null);
+        }
+        if (update) {
+            sendChanges(world, chunkX, chunkZ, blocks.getIndexes());
+        }
+        return written;
+    }
+
+    @Override
+    public void relightChunk(World world, int chunkX, int chunkZ) {
+        try {
+            ChunkAccess access = ChunkAccess.get();
+            Object chunk = access.getChunk(world, chunkX, chunkZ);
+            access.initLighting.invokeExact(chunk);
+            access.markDirty.invokeExact(chunk);
+        } catch (Throwable throwable) {
+            BGDCore.debug("Failed to relight chunk " + chunkX + ", " + chunkZ + "!");
+        }
+    }
+
+    @Override
+    public void sendChanges(World world, int chunkX, int chunkZ, BitSet changed) {
+        int count = changed.cardinality();
+        if (count == 0) {
+            return;
+        } else if (count > CoreConfiguration.pasteChunkResendFraction * 65536) {
+            world.refreshChunk(chunkX, chunkZ);
+            return;
+        }
+        List<Player> viewers = new ArrayList<>();
+        int view = Bukkit.getViewDistance();
+        for (Player player : world.getPlayers()) {
+            Location location = player.getLocation();
+            if (Math.abs((location.getBlockX() >> 4) - chunkX) <= view && Math.abs((location.getBlockZ() >> 4) - chunkZ) <= view) {
+                viewers.add(player);
+            }
+        }
+        if (viewers.isEmpty()) {
+            return;
+        }
+        try {
+            ChunkAccess chunkAccess = ChunkAccess.get();
+            PacketAccess access = PacketAccess.get();
+            Object chunk = chunkAccess.getChunk(world, chunkX, chunkZ);
+            List<Object> connections = new ArrayList<>();
+            for (Player viewer : viewers) {
+                connections.add((Object) access.playerConnection.invokeExact((Object) access.getPlayerHandle.invokeExact(viewer)));
+            }
+            for (int section = 0; section < 16; section++) {
+                BitSet inSection = changed.get(section << 12, (section + 1) << 12);
+                if (inSection.isEmpty()) {
+                    continue;
+                }
+                short[] records = new short[inSection.cardinality()];
+                int i = 0;
+                for (int index = inSection.nextSetBit(0); index >= 0; index = inSection.nextSetBit(index + 1)) {
+                    // the packet wants x << 12 | z << 8 | y
+                    records[i++] = (short) ((index & 15) << 12 | (index >> 4 & 15) << 8 | section << 4 | index >> 8);
+                }
+                Object packet = (Object) access.newMultiBlockChange.invokeExact(records.length, records, chunk);
+                for (Object connection : connections) {
+                    access.sendPacket.invokeExact(connection, packet);
+                }
+            }
+        } catch (Throwable throwable) {
+            BGDCore.debug("Failed to send block changes with NMS! Resending the chunk.");
+            world.refreshChunk(chunkX, chunkZ);
+        }
+    }
+
+    @Override
+    public int setBlocks(World world, Cuboid region, short[] ids, byte[] data, boolean update) {
+        checkSize(region, ids.length);
+        if (data != null) {
+            checkSize(region, data.length);
+        }
+        int written = 0;
+        for (int chunkX = region.getMinX() >> 4; chunkX <= region.getMaxX() >> 4; chunkX++) {
+            for (int chunkZ = region.getMinZ() >> 4; chunkZ <= region.getMaxZ() >> 4; chunkZ++) {
+                PackedChunk blocks = new PackedChunk();
+                int minX = Math.max(region.getMinX(), chunkX << 4), maxX = Math.min(region.getMaxX(), chunkX << 4 | 15);
+                int minZ = Math.max(region.getMinZ(), chunkZ << 4), maxZ = Math.min(region.getMaxZ(), chunkZ << 4 | 15);
+                for (int y = Math.max(region.getMinY(), 0); y <= Math.min(region.getMaxY(), 255); y++) {
+                    for (int z = minZ; z <= maxZ; z++) {
+                        int index = region.getIndex(minX, y, z);
+                        for (int x = minX; x <= maxX; x++, index++) {
+                            if (ids[index] >= 0) {
+                                blocks.set(x, y, z, ids[index], data == null ? 0 : data[index]);
+                            }
+                        }
+                    }
+                }
+                written += setBlocks(world, chunkX, chunkZ, blocks, update);
+            }
+        }
+        return written;
+    }
+
+    @Override
+    public void getIds(World world, Cuboid region, short[] out) {
+        readSections(world, region, out, null);
+    }
+
+    @Override
+    public void getData(World world, Cuboid region, byte[] out) {
+        readSections(world, region, null, out);
+    }
+
+    private void readSections(World world, Cuboid region, short[] ids, byte[] data) {
+        int volume = checkSize(region, ids != null ? ids.length : data.length);
+        if (ids != null) {
+            Arrays.fill(ids, 0, volume, (short) 0);
+        } else {
+            Arrays.fill(data, 0, volume, (byte) 0);
+        }
+        int minY = Math.max(region.getMinY(), 0), maxY = Math.min(region.getMaxY(), 255);
+        try {
+            ChunkAccess access = ChunkAccess.get();
+            Object nmsWorld = (Object) access.getHandle.invokeExact(world);
+            for (int chunkX = region.getMinX() >> 4; chunkX <= region.getMaxX() >> 4; chunkX++) {
+                for (int chunkZ = region.getMinZ() >> 4; chunkZ <= region.getMaxZ() >> 4; chunkZ++) {
+                    Object[] sections = (Object[]) access.sections.invokeExact((Object) access.getChunkAt.invokeExact(nmsWorld, chunkX, chunkZ));
+                    int minX = Math.max(region.getMinX(), chunkX << 4), maxX = Math.min(region.getMaxX(), chunkX << 4 | 15);
+                    int minZ = Math.max(region.getMinZ(), chunkZ << 4), maxZ = Math.min(region.getMaxZ(), chunkZ << 4 | 15);
+                    for (int i = minY >> 4; i <= maxY >> 4; i++) {
+                        Object section = sections[i];
+                        if (section == null) {
+                            continue; // all air
+                        }
+                        byte[] blockIds = ids == null ? null : (byte[]) access.blockIds.invokeExact(section);
+                        Object extended = ids == null ? null : (Object) access.extBlockIds.invokeExact(section);
+                        byte[] extendedIds = extended == null ? null : (byte[]) access.nibbles.invokeExact(extended);
+                        byte[] blockData = data == null ? null : (byte[]) access.nibbles.invokeExact((Object) access.blockData.invokeExact(section));
+                        for (int y = Math.max(minY, i << 4), top = Math.min(maxY, i << 4 | 15); y <= top; y++) {
+                            for (int z = minZ; z <= maxZ; z++) {
+                                int index = region.getIndex(minX, y, z);
+                                for (int x = minX; x <= maxX; x++, index++) {
+                                    int sectionIndex = PackedChunk.getIndex(x, y, z);
+                                    if (ids != null) {
+                                        int id = blockIds[sectionIndex] & 0xFF;
+                                        if (extendedIds != null) {
+                                            id |= getNibble(extendedIds, sectionIndex) << 8;
+                                        }
+                                        ids[index] = (short) id;
+                                    } else {
+                                        data[index] = (byte) getNibble(blockData, sectionIndex);
+                                    }
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+        } catch (Throwable throwable) {
+            BGDCore.debug("Failed to read chunk sections with NMS! Doing it block by block.");
+            for (int y = minY; y <= maxY; y++) {
+                for (int z = region.getMinZ(); z <= region.getMaxZ(); z++) {
+                    for (int x = region.getMinX(); x <= region.getMaxX(); x++) {
+                        if (ids != null) {
+                            ids[region.getIndex(x, y, z)] = (short) getId(world, x, y, z);
+                        } else {
+                            data[region.getIndex(x, y, z)] = (byte) getData(world, x, y, z);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public Map<Integer, Object> getTileEntities(World world, Cuboid region) {
+        Map<Integer, Object> found = new HashMap<>();
+        try {
+            ChunkAccess access = ChunkAccess.get();
+            Object nmsWorld = (Object) access.getHandle.invokeExact(world);
+            for (int chunkX = region.getMinX() >> 4; chunkX <= region.getMaxX() >> 4; chunkX++) {
+                for (int chunkZ = region.getMinZ() >> 4; chunkZ <= region.getMaxZ() >> 4; chunkZ++) {
+                    Object chunk = (Object) access.getChunkAt.invokeExact(nmsWorld, chunkX, chunkZ);
+                    for (Map.Entry<?, ?> entry : ((Map<?, ?>) access.tileEntities.invokeExact(chunk)).entrySet()) {
+                        Object position = entry.getKey();
+                        int x = chunkX << 4 | (int) access.positionX.invokeExact(position), y = (int) access.positionY.invokeExact(position), z = chunkZ << 4 | (int) access.positionZ.invokeExact(position);
+                        if (region.contains(x, y, z)) {
+                            found.put(region.getIndex(x, y, z), entry.getValue());
+                        }
+                    }
+                }
+            }
+        } catch (Throwable throwable) {
+            BGDCore.debug("Failed to read TileEntities with NMS! Doing bukkit.");
+            found.clear();
+            for (int chunkX = region.getMinX() >> 4; chunkX <= region.getMaxX() >> 4; chunkX++) {
+                for (int chunkZ = region.getMinZ() >> 4; chunkZ <= region.getMaxZ() >> 4; chunkZ++) {
+                    for (BlockState state : world.getChunkAt(chunkX, chunkZ).getTileEntities()) {
+                        if (region.contains(state.getX(), state.getY(), state.getZ())) {
+                            found.put(region.getIndex(state.getX(), state.getY(), state.getZ()), getTileEntity(world, state.getX(), state.getY(), state.getZ()).getObject());
+                        }
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    private static int checkSize(Cuboid region, int length) {
+        if (region.getVolume() > length) {
+            throw new IllegalArgumentException("Array of " + length + " is too small for " + region + "!");
+        }
+        return (int) region.getVolume();
+    }
+
+    /**
+     * Writes blocks straight into a chunk's sections. If a section fails part way through, it and the rest are set
+     * block by block instead.
+     *
+     * @throws ReflectiveOperationException if NMS didn't match before anything was written
+     */
+    private int writeSections(World world, int chunkX, int chunkZ, PackedChunk blocks, boolean relight) throws ReflectiveOperationException {
+        ChunkAccess access;
+        Object chunk;
+        Object[] sections;
+        // tile entities need to be removed properly, so we'll let the world do those
+        BitSet skipped = new BitSet(65536);
+        try {
+            access = ChunkAccess.get();
+            chunk = access.getChunk(world, chunkX, chunkZ);
+            sections = (Object[]) access.sections.invokeExact(chunk);
+            for (Object position : new ArrayList<>(((Map<?, ?>) access.tileEntities.invokeExact(chunk)).keySet())) {
+                int x = (int) access.positionX.invokeExact(position), y = (int) access.positionY.invokeExact(position), z = (int) access.positionZ.invokeExact(position);
+                if (blocks.get(x, y, z) != PackedChunk.UNSET) {
+                    skipped.set(y << 8 | PackedChunk.getIndex(x, 0, z));
+                }
+            }
+        } catch (Throwable throwable) {
+            throw ChunkAccess.failure(throwable);
+        }
+        int written = setBlocksSlowly(world, chunkX, chunkZ, blocks, skipped);
+
+        boolean sky = world.getEnvironment() == World.Environment.NORMAL;
+        for (int i = 0; i < sections.length; i++) {
+            int[] values = blocks.getSection(i);
+            if (values == null) {
+                continue;
+            }
+            try {
+                written += writeSection(access, sections, i, values, blocks.isAir(i), skipped, sky);
+            } catch (Throwable throwable) {
+                BGDCore.debug("Failed to write chunk section " + i + " with NMS! Doing the rest block by block. " + ChunkAccess.failure(throwable));
+                // the failed section may be half written, setting it again just writes the same blocks
+                BitSet rest = new BitSet(65536);
+                rest.set(i << 12, 65536);
+                rest.andNot(skipped);
+                return written + setBlocksSlowly(world, chunkX, chunkZ, blocks, rest);
+            }
+        }
+        try {
+            if (relight) {
+                access.initLighting.invokeExact(chunk);
+            }
+            access.markDirty.invokeExact(chunk);
+        } catch (Throwable throwable) {
+            BGDCore.debug("Failed to relight or save chunk " + chunkX + ", " + chunkZ + " after writing it! " + ChunkAccess.failure(throwable));
+        }
+        return written;
+    }
+
+    /**
+     * Writes a section's blocks, creating the section if it's needed
+     *
+     * @return how many blocks were written
+     */
+    private int writeSection(ChunkAccess access, Object[] sections, int i, int[] values, boolean air, BitSet skipped, boolean sky) throws Throwable {
+        Object section = sections[i];
+        if (section == null) {
+            if (air) {
+                return 0; // it's already air
+            }
+            section = (Object) access.newSection.invokeExact(i << 4, sky);
+            sections[i] = section;
+        }
+        byte[] ids = (byte[]) access.blockIds.invokeExact(section);
+        byte[] data = (byte[]) access.nibbles.invokeExact((Object) access.blockData.invokeExact(section));
+        Object extended = (Object) access.extBlockIds.invokeExact(section);
+        byte[] extendedIds = extended == null ? null : (byte[]) access.nibbles.invokeExact(extended);
+        int written = 0;
+        for (int index = 0; index < values.length; index++) {
+            int value = values[index];
+            if (value == PackedChunk.UNSET || skipped.get(i << 12 | index)) {
+                continue;
+            }
+            int id = PackedChunk.getId(value);
+            ids[index] = (byte) id;
+            if (id > 255 && extendedIds == null) {
+                extended = (Object) access.newNibbleArray.invokeExact(4096, 4);
+                access.setExtBlockIds.invokeExact(section, extended);
+                extendedIds = (byte[]) access.nibbles.invokeExact(extended);
+            }
+            if (extendedIds != null) {
+                setNibble(extendedIds, index, id >> 8);
+            }
+            setNibble(data, index, PackedChunk.getData(value));
+            written++;
+        }
+        access.recalcBlockCounts.invokeExact(section);
+        return written;
+    }
+
+    /**
+     * Sets blocks one at a time through the world
+     *
+     * @param only if not null, the only blocks to set. Indexed by y << 8 | z << 4 | x
+     */
+    private int setBlocksSlowly(World world, int chunkX, int chunkZ, PackedChunk blocks, BitSet only) {
+        int written = 0;
+        for (int y = 0; y < 256; y++) {
+            if (blocks.getSection(y >> 4) == null) {
+                y |= 15;
+                continue;
+            }
+            for (int z = 0; z < 16; z++) {
+                for (int x = 0; x < 16; x++) {
+                    int value = blocks.get(x, y, z);
+                    if (value == PackedChunk.UNSET || (only != null && !only.get(y << 8 | z << 4 | x))) {
+                        continue;
+                    }
+                    Material material = Material.getMaterial(PackedChunk.getId(value));
+                    if (material != null && setBlock(world, chunkX << 4 | x, y, chunkZ << 4 | z, material, (short) PackedChunk.getData(value), false)) {
+                        written++;
+                    }
+                }
+            }
+        }
+        return written;
+    }
+
+    private static int getNibble(byte[] nibbles, int index) {
+        return (index & 1) == 0 ? nibbles[index >> 1] & 0xF : nibbles[index >> 1] >> 4 & 0xF;
+    }
+
+    private static void setNibble(byte[] nibbles, int index, int value) {
+        int i = index >> 1;
+        if ((index & 1) == 0) {
+            nibbles[i] = (byte) (nibbles[i] & 0xF0 | value & 0xF);
+        } else {
+            nibbles[i] = (byte) (nibbles[i] & 0x0F | (value & 0xF) << 4);
         }
-        return world.getBlockAt(x, y, z).setTypeIdAndData(type.getId(), (byte) data, true);
     }
 
     @Override
     public void setTileEntity(World world, int x, int y, int z, Object object) {
-        ReflectionObject nmsWorld = new ReflectionObject(world).getMethod("getHandle").invoke();
-        ReflectionMethod getTileEntity = NMSReflection.nmsWorld.getMethod(nmsWorld.getObject(), "setTileEntity", new Class[]{int.class, int.class, int.class, NMSReflection.tileEntity.getClazz()});
-        getTileEntity.invoke(x, y, z, object);
+        try {
+            WorldAccess.setTileEntity.invokeExact(WorldAccess.getHandle(world), x, y, z, object);
+        } catch (Throwable throwable) {
+            throw new RuntimeException("Failed to set TileEntity at " + x + ", " + y + ", " + z + "!", throwable);
+        }
     }
 
     @Override
     public ReflectionObject getTileEntity(World world, int x, int y, int z) {
-        ReflectionObject nmsWorld = new ReflectionObject(world).getMethod("getHandle").invoke();
-        ReflectionMethod getTileEntity = nmsWorld.getMethod("getTileEntity", x, y, z);
-        return getTileEntity.invoke(x, y, z);
+        try {
+            return new ReflectionObject((Object) WorldAccess.getTileEntity.invokeExact(WorldAccess.getHandle(world), x, y, z));
+        } catch (Throwable throwable) {
+            throw new RuntimeException("Failed to get TileEntity at " + x + ", " + y + ", " + z + "!", throwable);
+        }
     }
 
     @Override
     public int getId(World world, int x, int y, int z) {
-        ReflectionObject nmsWorld = new ReflectionObject(world).getMethod("getHandle").invoke();
-        ReflectionMethod getTileEntity = NMSReflection.nmsWorld.getMethod(nmsWorld.getObject(), "getType", x, y, z);
-        Object block = getTileEntity.invoke(x, y, z).getObject();
-        return (int) NMSReflection.craftMagicNumbers.getStaticMethod("getId", new Class[]{NMSReflection.nmsBlock.getClazz()}).invoke(block).getObject();
+        if (WorldAccess.getType != null && WorldAccess.getBlockId != null) {
+            try {
+                return (int) WorldAccess.getBlockId.invokeExact((Object) WorldAccess.getType.invokeExact(WorldAccess.getHandle(world), x, y, z));
+            } catch (Throwable throwable) {
+                BGDCore.debug("Failed to get block id with NMS! Doing bukkit.");
+            }
+        }
+        return world.getBlockTypeIdAt(x, y, z);
     }
 
     @Override
     public short getData(World world, int x, int y, int z) {
-        ReflectionObject nmsWorld = new ReflectionObject(world).getMethod("getHandle").invoke();
-        ReflectionMethod getTileEntity = nmsWorld.getMethod("getData", x, y, z);
-        return (short) getTileEntity.invoke(x, y, z).getObject();
+        if (WorldAccess.getData != null) {
+            try {
+                return (short) (int) WorldAccess.getData.invokeExact(WorldAccess.getHandle(world), x, y, z);
+            } catch (Throwable throwable) {
+                BGDCore.debug("Failed to get block data with NMS! Doing bukkit.");
+            }
+        }
+        return world.getBlockAt(x, y, z).getData();
+    }
+
+    @Override
+    public List<String> verify() {
+        List<String> missing = new ArrayList<>();
+        if (WorldAccess.getHandle == null) {
+            missing.add("CraftWorld.getHandle");
+        }
+        if (WorldAccess.setTypeAndData == null) {
+            missing.add("World.setTypeAndData");
+        }
+        if (WorldAccess.getType == null) {
+            missing.add("World.getType");
+        }
+        if (WorldAccess.getData == null) {
+            missing.add("World.getData");
+        }
+        if (WorldAccess.getTileEntity == null) {
+            missing.add("World.getTileEntity");
+        }
+        if (WorldAccess.setTileEntity == null) {
+            missing.add("World.setTileEntity");
+        }
+        if (WorldAccess.getBlockId == null) {
+            missing.add("CraftMagicNumbers.getId");
+        }
+        try {
+            ChunkAccess.get();
+        } catch (Exception e) {
+            missing.add("chunk access (" + e + ")");
+        }
+        try {
+            PacketAccess.get();
+        } catch (Exception e) {
+            missing.add("packet access (" + e + ")");
+        }
+        try {
+            NBTAccess.get();
+        } catch (Exception e) {
+            missing.add("NBT access (" + e + ")");
+        }
+        try {
+            ItemAccess.get();
+        } catch (Exception e) {
+            missing.add("item access (" + e + ")");
+        }
+        if (getBlock(1) == null) {
+            missing.add("Block lookup");
+        }
+        return missing;
     }
 
     @Override
@@ -82,8 +559,103 @@ public class v1_7_R1 implements BGDNMS {
         return (ItemStack) itemStack;
     }
 
+    @Override
+    public byte[] getItemBytes(ItemStack itemStack) {
+        Validate.notNull(itemStack);
+        try {
+            ItemAccess access = ItemAccess.get();
+            Object nmsItem = (Object) access.asNMSCopy.invokeExact(itemStack);
+            Object nbt = (Object) access.save.invokeExact(nmsItem, (Object) NBTAccess.get().newCompound.invokeExact());
+            return nbtToBytes(nbt);
+        } catch (Throwable throwable) {
+            BGDCore.debug("Failed to save an item to NBT with NMS! Going through JSON.");
+        }
+        return nbtToBytes(jsonToNBT(getItem(itemStack).getJsonObject()));
+    }
+
+    @Override
+    public ItemStack getBukkitItem(byte[] nbt) {
+        Object compound = bytesToNBT(nbt);
+        try {
+            ItemAccess access = ItemAccess.get();
+            return (ItemStack) access.asCraftMirror.invokeExact((Object) access.createStack.invokeExact(compound));
+        } catch (Throwable throwable) {
+            BGDCore.debug("Failed to load an item from NBT with NMS! Going through JSON.");
+        }
+        TransitionItem transitionItem = new TransitionItem();
+        transitionItem.setJsonObject(nbtToJSON(compound));
+        return getBukkitItem(transitionItem);
+    }
+
+    @Override
+    public ItemStack addToTag(ItemStack itemStack, JSONObject values) {
+        try {
+            ItemAccess access = ItemAccess.get();
+            NBTAccess nbtAccess = NBTAccess.get();
+            Object nmsItem = (Object) access.asNMSCopy.invokeExact(itemStack);
+            Object tag = (Object) access.getTag.invokeExact(nmsItem);
+            if (tag == null) {
+                tag = (Object) nbtAccess.newCompound.invokeExact();
+                access.setTag.invokeExact(nmsItem, tag);
+            }
+            for (Map.Entry<String, Object> entry : values.entrySet()) {
+                nbtAccess.compoundSet.invokeExact(tag, entry.getKey(), nbtAccess.toNBT(entry.getValue()));
+            }
+            return (ItemStack) access.asCraftMirror.invokeExact(nmsItem);
+        } catch (Throwable throwable) {
+            BGDCore.debug("Failed to edit an item's tag with NMS! Going through JSON.");
+        }
+        JSONObject jsonObject = getItem(itemStack).getJsonObject();
+        JSONObject tag = (JSONObject) jsonObject.get("tag");
+        if (tag == null) {
+            tag = new JSONObject();
+            jsonObject.put("tag", tag);
+        }
+        tag.putAll(values);
+        TransitionItem transitionItem = new TransitionItem();
+        transitionItem.setJsonObject(jsonObject);
+        return getBukkitItem(transitionItem);
+    }
+
+    @Override
+    public boolean hasTagKey(ItemStack itemStack, String key) {
+        Validate.notNull(itemStack);
+        try {
+            Object tag = ItemAccess.get().getItemTag(itemStack);
+            return tag != null && (boolean) NBTAccess.get().compoundHasKey.invokeExact(tag, key);
+        } catch (Throwable throwable) {
+            BGDCore.debug("Failed to read an item's tag with NMS! Going through JSON.");
+        }
+        JSONObject tag = (JSONObject) getItem(itemStack).getJsonObject().get("tag");
+        return tag != null && tag.containsKey(key);
+    }
+
+    @Override
+    public Map<String, Object> getTagCompound(ItemStack itemStack, String name) {
+        Validate.notNull(itemStack);
+        try {
+            NBTAccess nbtAccess = NBTAccess.get();
+            Object tag = ItemAccess.get().getItemTag(itemStack);
+            Object compound = tag == null ? null : (Object) nbtAccess.compoundGet.invokeExact(tag, name);
+            if (compound == null || compound.getClass() != NMSReflection.nbtTagCompound.getClazz()) {
+                return null;
+            }
+            return new LazyCompound(nbtAccess, (Map<?, ?>) (Object) nbtAccess.compoundMap.invokeExact(compound));
+        } catch (Throwable throwable) {
+            BGDCore.debug("Failed to read an item's tag with NMS! Going through JSON.");
+        }
+        JSONObject tag = (JSONObject) getItem(itemStack).getJsonObject().get("tag");
+        Object compound = tag == null ? null : tag.get(name);
+        return compound instanceof JSONObject && !((JSONObject) compound).containsKey("nbtTagList") ? Collections.unmodifiableMap((JSONObject) compound) : null;
+    }
+
     @Override
     public Object jsonToNBT(JSONObject jsonObject) {
+        try {
+            return NBTAccess.get().toNBT(jsonObject);
+        } catch (Throwable throwable) {
+            BGDCore.debug("Failed to convert JSON to NBT with the converters! Doing it reflectively.");
+        }
         return loadNBTFromJSON(jsonObject);
     }
 
@@ -140,8 +712,525 @@ public class v1_7_R1 implements BGDNMS {
         }
     }
 
+    /**
+     * The members needed to read and write single blocks, found once when the class is first used. Every handle takes
+     * and returns primitives where Minecraft does, so nothing is boxed, and is null if it couldn't be found.
+     */
+    static final class WorldAccess {
+
+        static final MethodHandle getHandle = find(Reflection.getCBSClass("CraftWorld").getClazz(), "getHandle", MethodType.methodType(Object.class, World.class));
+        static final MethodHandle setTypeAndData = find(NMSReflection.nmsWorld.getClazz(), "setTypeAndData", MethodType.methodType(boolean.class, Object.class, int.class, int.class, int.class, Object.class, int.class, int.class), int.class, int.class, int.class, NMSReflection.nmsBlock.getClazz(), int.class, int.class);
+        static final MethodHandle getType = find(NMSReflection.nmsWorld.getClazz(), "getType", MethodType.methodType(Object.class, Object.class, int.class, int.class, int.class), int.class, int.class, int.class);
+        static final MethodHandle getData = find(NMSReflection.nmsWorld.getClazz(), "getData", MethodType.methodType(int.class, Object.class, int.class, int.class, int.class), int.class, int.class, int.class);
+        static final MethodHandle getTileEntity = find(NMSReflection.nmsWorld.getClazz(), "getTileEntity", MethodType.methodType(Object.class, Object.class, int.class, int.class, int.class), int.class, int.class, int.class);
+        static final MethodHandle setTileEntity = find(NMSReflection.nmsWorld.getClazz(), "setTileEntity", MethodType.methodType(void.class, Object.class, int.class, int.class, int.class, Object.class), int.class, int.class, int.class, NMSReflection.tileEntity.getClazz());
+        static final MethodHandle getBlockId = find(NMSReflection.craftMagicNumbers.getClazz(), "getId", MethodType.methodType(int.class, Object.class), NMSReflection.nmsBlock.getClazz());
+
+        private WorldAccess() {
+        }
+
+        static Object getHandle(World world) throws Throwable {
+            return (Object) getHandle.invokeExact(world);
+        }
+
+        /**
+         * Finds a method, looking through super classes, and turns it into a handle
+         *
+         * @param clazz      the class to start looking in
+         * @param name       the method's name
+         * @param type       the type the handle should have, with Object in place of Minecraft's classes
+         * @param parameters the method's real parameters
+         * @return the handle, or null if the method couldn't be found
+         */
+        private static MethodHandle find(Class<?> clazz, String name, MethodType type, Class<?>... parameters) {
+            for (Class<?> current = clazz; current != null; current = current.getSuperclass()) {
+                try {
+                    Method method = current.getDeclaredMethod(name, parameters);
+                    method.setAccessible(true);
+                    return MethodHandles.lookup().unreflect(method).asType(type);
+                } catch (NoSuchMethodException e) {
+                    // try the super class
+                } catch (Exception e) {
+                    break;
+                }
+            }
+            BGDCore.debug("Couldn't find " + clazz.getSimpleName() + "." + name + "!");
+            return null;
+        }
+
+    }
+
+    /**
+     * The members needed to write straight into chunk sections, found once. Like {@link WorldAccess}, every handle has
+     * Object in place of Minecraft's classes and keeps its primitives, so they're all called with invokeExact.
+     */
+    private static class ChunkAccess {
+
+        private static volatile ChunkAccess instance;
+
+        private final MethodHandle getHandle, getChunkAt, recalcBlockCounts, initLighting, markDirty;
+        private final MethodHandle sections, tileEntities, blockIds, extBlockIds, setExtBlockIds, blockData, nibbles, positionX, positionY, positionZ;
+        private final MethodHandle newSection, newNibbleArray;
+
+        private ChunkAccess() throws Exception {
+            Class<?> chunk = Reflection.getNMSClass("Chunk").getClazz();
+            Class<?> section = Reflection.getNMSClass("ChunkSection").getClazz();
+            Class<?> nibbleArray = Reflection.getNMSClass("NibbleArray").getClazz();
+            Class<?> position = Reflection.getNMSClass("ChunkPosition").getClazz();
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+
+            getHandle = lookup.unreflect(accessible(Reflection.getCBSClass("CraftWorld").getClazz().getDeclaredMethod("getHandle"))).asType(MethodType.methodType(Object.class, World.class));
+            getChunkAt = lookup.unreflect(accessible(NMSReflection.nmsWorld.getClazz().getDeclaredMethod("getChunkAt", int.class, int.class))).asType(MethodType.methodType(Object.class, Object.class, int.class, int.class));
+            recalcBlockCounts = lookup.unreflect(accessible(section.getDeclaredMethod("recalcBlockCounts"))).asType(MethodType.methodType(void.class, Object.class));
+            initLighting = lookup.unreflect(accessible(chunk.getDeclaredMethod("initLighting"))).asType(MethodType.methodType(void.class, Object.class));
+            markDirty = lookup.unreflect(accessible(chunk.getDeclaredMethod("e"))).asType(MethodType.methodType(void.class, Object.class));
+
+            sections = getter(chunk, "sections", Object[].class);
+            tileEntities = getter(chunk, "tileEntities", Map.class);
+            blockIds = getter(section, "blockIds", byte[].class);
+            extBlockIds = getter(section, "extBlockIds", Object.class);
+            setExtBlockIds = lookup.unreflectSetter(accessible(section.getDeclaredField("extBlockIds"))).asType(MethodType.methodType(void.class, Object.class, Object.class));
+            blockData = getter(section, "blockData", Object.class);
+            nibbles = getter(nibbleArray, "a", byte[].class);
+            positionX = getter(position, "x", int.class);
+            positionY = getter(position, "y", int.class);
+            positionZ = getter(position, "z", int.class);
+
+            newSection = lookup.unreflectConstructor(accessible(section.getDeclaredConstructor(int.class, boolean.class))).asType(MethodType.methodType(Object.class, int.class, boolean.class));
+            newNibbleArray = lookup.unreflectConstructor(accessible(nibbleArray.getDeclaredConstructor(int.class, int.class))).asType(MethodType.methodType(Object.class, int.class, int.class));
+        }
+
+        private static ChunkAccess get() throws Exception {
+            ChunkAccess access = instance;
+            if (access == null) {
+                synchronized (ChunkAccess.class) {
+                    access = instance;
+                    if (access == null) {
+                        instance = access = new ChunkAccess();
+                    }
+                }
+            }
+            return access;
+        }
+
+        /**
+         * Checks that a failure came from NMS not matching what was expected, anything else is thrown as it is
+         *
+         * @param throwable what was thrown by a handle
+         * @return the failure, wrapped if it isn't already reflective
+         */
+        private static ReflectiveOperationException failure(Throwable throwable) {
+            if (throwable instanceof ReflectiveOperationException) {
+                return (ReflectiveOperationException) throwable;
+            } else if (throwable instanceof LinkageError || throwable instanceof WrongMethodTypeException || throwable instanceof ClassCastException) {
+                return new ReflectiveOperationException(throwable);
+            }
+            throw Throwables.propagate(throwable);
+        }
+
+        private Object getChunk(World world, int chunkX, int chunkZ) throws Throwable {
+            return (Object) getChunkAt.invokeExact((Object) getHandle.invokeExact(world), chunkX, chunkZ);
+        }
+
+        private static MethodHandle getter(Class<?> clazz, String name, Class<?> type) throws Exception {
+            return MethodHandles.lookup().unreflectGetter(accessible(clazz.getDeclaredField(name))).asType(MethodType.methodType(type, Object.class));
+        }
+
+        private static <T extends AccessibleObject> T accessible(T object) {
+            if (!object.isAccessible()) {
+                object.setAccessible(true);
+            }
+            return object;
+        }
+
+    }
+
+    /**
+     * Converts between NBT and JSON. Every tag class is mapped to a converter made of method handles, found once, so a
+     * conversion is a map lookup and a direct call per tag. Lists and compounds are read straight from their fields.
+     */
+    private static class NBTAccess {
+
+        private static volatile NBTAccess instance;
+
+        private final Map<Class<?>, Converter> readers = new IdentityHashMap<>();
+        private final Map<Class<?>, Converter> writers = new IdentityHashMap<>();
+        private final MethodHandle compoundMap, compoundGet, compoundHasKey, newCompound, compoundSet, newList, listAdd, newIntArray, newByteArray, newString;
+
+        private NBTAccess() throws Exception {
+            Class<?> base = NMSReflection.nbtBase.getClazz();
+            Class<?> compound = NMSReflection.nbtTagCompound.getClazz();
+            Class<?> list = NMSReflection.nbtTagList.getClazz();
+
+            compoundMap = getter(compound, "map");
+            readers.put(compound, new Converter() {
+                @Override
+                Object convert(Object nbt) throws Throwable {
+                    JSONObject json = new JSONObject();
+                    for (Map.Entry<?, ?> entry : ((Map<?, ?>) (Object) compoundMap.invokeExact(nbt)).entrySet()) {
+                        json.put((String) entry.getKey(), toJSON(entry.getValue()));
+                    }
+                    return json;
+                }
+            });
+            final MethodHandle listContents = getter(list, "list");
+            readers.put(list, new Converter() {
+                @Override
+                Object convert(Object nbt) throws Throwable {
+                    JSONArray array = new JSONArray();
+                    for (Object tag : (List<?>) (Object) listContents.invokeExact(nbt)) {
+                        array.add(toJSON(tag));
+                    }
+                    JSONObject json = new JSONObject();
+                    json.put("nbtTagList", array);
+                    return json;
+                }
+            });
+            final MethodHandle intArray = method(NMSReflection.nbtTagIntArray.getClazz(), "c", Object.class);
+            readers.put(NMSReflection.nbtTagIntArray.getClazz(), new Converter() {
+                @Override
+                Object convert(Object nbt) throws Throwable {
+                    JSONArray array = new JSONArray();
+                    for (int value : (int[]) (Object) intArray.invokeExact(nbt)) {
+                        array.add(value);
+                    }
+                    JSONObject json = new JSONObject();
+                    json.put("nbtTagIntArray", array);
+                    return json;
+                }
+            });
+            final MethodHandle byteArray = method(NMSReflection.nbtTagByteArray.getClazz(), "c", Object.class);
+            readers.put(NMSReflection.nbtTagByteArray.getClazz(), new Converter() {
+                @Override
+                Object convert(Object nbt) throws Throwable {
+                    JSONArray array = new JSONArray();
+                    for (byte value : (byte[]) (Object) byteArray.invokeExact(nbt)) {
+                        array.add(value);
+                    }
+                    JSONObject json = new JSONObject();
+                    json.put("nbtTagByteArray", array);
+                    return json;
+                }
+            });
+            reader(NMSReflection.nbtTagString, "a_");
+            reader(NMSReflection.nbtTagDouble, "g");
+            reader(NMSReflection.nbtTagFloat, "h");
+            reader(NMSReflection.nbtTagLong, "c");
+            reader(NMSReflection.nbtTagInt, "d");
+            reader(NMSReflection.nbtTagShort, "e");
+            reader(NMSReflection.nbtTagByte, "f");
+
+            compoundGet = method(compound, "get", Object.class, String.class);
+            compoundHasKey = method(compound, "hasKey", boolean.class, String.class);
+            newCompound = constructor(compound);
+            compoundSet = method(compound, "set", void.class, String.class, base);
+            newList = constructor(list);
+            listAdd = method(list, "add", void.class, base);
+            newIntArray = constructor(NMSReflection.nbtTagIntArray.getClazz(), int[].class);
+            newByteArray = constructor(NMSReflection.nbtTagByteArray.getClazz(), byte[].class);
+            newString = constructor(NMSReflection.nbtTagString.getClazz(), String.class);
+            writer(String.class, NMSReflection.nbtTagString, String.class);
+            writer(Double.class, NMSReflection.nbtTagDouble, double.class);
+            writer(Float.class, NMSReflection.nbtTagFloat, float.class);
+            writer(Long.class, NMSReflection.nbtTagLong, long.class);
+            writer(Integer.class, NMSReflection.nbtTagInt, int.class);
+            writer(Short.class, NMSReflection.nbtTagShort, short.class);
+            writer(Byte.class, NMSReflection.nbtTagByte, byte.class);
+        }
+
+        private static NBTAccess get() throws Exception {
+            NBTAccess access = instance;
+            if (access == null) {
+                synchronized (NBTAccess.class) {
+                    access = instance;
+                    if (access == null) {
+                        instance = access = new NBTAccess();
+                    }
+                }
+            }
+            return access;
+        }
+
+        private Object toJSON(Object nbt) throws Throwable {
+            Converter reader = readers.get(nbt.getClass());
+            return reader == null ? nbt.toString() : reader.convert(nbt);
+        }
+
+        private Object toNBT(Object value) throws Throwable {
+            if (value instanceof JSONObject) {
+                JSONObject json = (JSONObject) value;
+                if (json.containsKey("nbtTagList")) {
+                    Object list = (Object) newList.invokeExact();
+                    for (Object tag : (JSONArray) json.get("nbtTagList")) {
+                        listAdd.invokeExact(list, toNBT(tag));
+                    }
+                    return list;
+                } else if (json.containsKey("nbtTagIntArray")) {
+                    JSONArray array = (JSONArray) json.get("nbtTagIntArray");
+                    int[] ints = new int[array.size()];
+                    for (int i = 0; i < ints.length; i++) {
+                        ints[i] = ((Number) array.get(i)).intValue();
+                    }
+                    return (Object) newIntArray.invokeExact(ints);
+                } else if (json.containsKey("nbtTagByteArray")) {
+                    JSONArray array = (JSONArray) json.get("nbtTagByteArray");
+                    byte[] bytes = new byte[array.size()];
+                    for (int i = 0; i < bytes.length; i++) {
+                        bytes[i] = ((Number) array.get(i)).byteValue();
+                    }
+                    return (Object) newByteArray.invokeExact(bytes);
+                }
+                Object compound = (Object) newCompound.invokeExact();
+                for (Map.Entry<String, Object> entry : json.entrySet()) {
+                    compoundSet.invokeExact(compound, entry.getKey(), toNBT(entry.getValue()));
+                }
+                return compound;
+            }
+            Converter writer = writers.get(value.getClass());
+            if (writer == null) {
+                return (Object) newString.invokeExact(value.toString());
+            }
+            return writer.convert(value);
+        }
+
+        private void reader(ReflectionClass tag, String name) throws Exception {
+            final MethodHandle handle = method(tag.getClazz(), name, Object.class);
+            readers.put(tag.getClazz(), new Converter() {
+                @Override
+                Object convert(Object nbt) throws Throwable {
+                    return (Object) handle.invokeExact(nbt);
+                }
+            });
+        }
+
+        private void writer(Class<?> type, ReflectionClass tag, Class<?> parameter) throws Exception {
+            final MethodHandle handle = MethodHandles.lookup().unreflectConstructor(ChunkAccess.accessible(tag.getClazz().getDeclaredConstructor(parameter))).asType(MethodType.methodType(Object.class, Object.class));
+            writers.put(type, new Converter() {
+                @Override
+                Object convert(Object value) throws Throwable {
+                    return (Object) handle.invokeExact(value);
+                }
+            });
+        }
+
+        /**
+         * Finds a method in a class or its super classes, with every class but primitives as Object
+         */
+        private static MethodHandle method(Class<?> clazz, String name, Class<?> returned, Class<?>... parameters) throws Exception {
+            for (Class<?> current = clazz; current != null; current = current.getSuperclass()) {
+                try {
+                    MethodHandle handle = MethodHandles.lookup().unreflect(ChunkAccess.accessible(current.getDeclaredMethod(name, parameters)));
+                    return handle.asType(erase(handle.type()).changeReturnType(returned));
+                } catch (NoSuchMethodException e) {
+                    // try the super class
+                }
+            }
+            throw new NoSuchMethodException(clazz.getSimpleName() + "." + name);
+        }
+
+        private static MethodHandle constructor(Class<?> clazz, Class<?>... parameters) throws Exception {
+            MethodHandle handle = MethodHandles.lookup().unreflectConstructor(ChunkAccess.accessible(clazz.getDeclaredConstructor(parameters)));
+            return handle.asType(erase(handle.type()));
+        }
+
+        private static MethodHandle getter(Class<?> clazz, String name) throws Exception {
+            return MethodHandles.lookup().unreflectGetter(ChunkAccess.accessible(clazz.getDeclaredField(name))).asType(MethodType.methodType(Object.class, Object.class));
+        }
+
+        private static MethodType erase(MethodType type) {
+            MethodType erased = type.changeReturnType(type.returnType().isPrimitive() ? type.returnType() : Object.class);
+            for (int i = 0; i < type.parameterCount(); i++) {
+                Class<?> parameter = type.parameterType(i);
+                if (!parameter.isPrimitive() && !parameter.isArray() && parameter != String.class) {
+                    erased = erased.changeParameterType(i, Object.class);
+                }
+            }
+            return erased;
+        }
+
+        private abstract static class Converter {
+
+            abstract Object convert(Object value) throws Throwable;
+
+        }
+
+    }
+
+    /**
+     * The members needed to get at an item's tag and save it as bytes, found once.
+     */
+    private static class ItemAccess {
+
+        private static volatile ItemAccess instance;
+
+        private final Class<?> craftItemStack;
+        private final MethodHandle asNMSCopy, asCraftMirror, handle, getTag, setTag, save, createStack, readNBT, writeNBT;
+
+        private ItemAccess() throws Exception {
+            Class<?> craftItemStack = NMSReflection.craftItemStack.getClazz();
+            Class<?> itemStack = NMSReflection.nmsItemStack.getClazz();
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+
+            asNMSCopy = lookup.unreflect(ChunkAccess.accessible(craftItemStack.getDeclaredMethod("asNMSCopy", ItemStack.class))).asType(MethodType.methodType(Object.class, ItemStack.class));
+            this.craftItemStack = craftItemStack;
+            handle = lookup.unreflectGetter(ChunkAccess.accessible(craftItemStack.getDeclaredField("handle"))).asType(MethodType.methodType(Object.class, ItemStack.class));
+            asCraftMirror = lookup.unreflect(ChunkAccess.accessible(craftItemStack.getDeclaredMethod("asCraftMirror", itemStack))).asType(MethodType.methodType(ItemStack.class, Object.class));
+            getTag = lookup.unreflect(ChunkAccess.accessible(itemStack.getDeclaredMethod("getTag"))).asType(MethodType.methodType(Object.class, Object.class));
+            setTag = lookup.unreflect(ChunkAccess.accessible(itemStack.getDeclaredMethod("setTag", NMSReflection.nbtTagCompound.getClazz()))).asType(MethodType.methodType(void.class, Object.class, Object.class));
+            save = lookup.unreflect(ChunkAccess.accessible(itemStack.getDeclaredMethod("save", NMSReflection.nbtTagCompound.getClazz()))).asType(MethodType.methodType(Object.class, Object.class, Object.class));
+            createStack = lookup.unreflect(ChunkAccess.accessible(itemStack.getDeclaredMethod("createStack", NMSReflection.nbtTagCompound.getClazz()))).asType(MethodType.methodType(Object.class, Object.class));
+
+            // the uncompressed ones, gzip is far slower than we need
+            Class<?> streamTools = NMSReflection.nbtCompressedStreamTools.getClazz();
+            readNBT = lookup.unreflect(ChunkAccess.accessible(streamTools.getDeclaredMethod("a", DataInputStream.class))).asType(MethodType.methodType(Object.class, DataInputStream.class));
+            writeNBT = lookup.unreflect(ChunkAccess.accessible(streamTools.getDeclaredMethod("a", NMSReflection.nbtTagCompound.getClazz(), DataOutput.class))).asType(MethodType.methodType(void.class, Object.class, DataOutput.class));
+        }
+
+        private static ItemAccess get() throws Exception {
+            ItemAccess access = instance;
+            if (access == null) {
+                synchronized (ItemAccess.class) {
+                    access = instance;
+                    if (access == null) {
+                        instance = access = new ItemAccess();
+                    }
+                }
+            }
+            return access;
+        }
+
+        /**
+         * Gets an item's tag, without copying craft items
+         */
+        private Object getItemTag(ItemStack itemStack) throws Throwable {
+            Object nmsItem = craftItemStack.isInstance(itemStack) ? (Object) handle.invokeExact(itemStack) : (Object) asNMSCopy.invokeExact(itemStack);
+            return nmsItem == null ? null : (Object) getTag.invokeExact(nmsItem);
+        }
+
+    }
+
+    /**
+     * A compound's values, only converted to JSON the first time each is read. Keys are copied when it's made, so
+     * later changes to the compound aren't seen.
+     */
+    private static class LazyCompound extends AbstractMap<String, Object> {
+
+        private final NBTAccess access;
+        private final Map<String, Object> tags = new HashMap<>();
+        private final Map<String, Object> values = new HashMap<>();
+
+        private LazyCompound(NBTAccess access, Map<?, ?> compound) {
+            this.access = access;
+            for (Map.Entry<?, ?> entry : compound.entrySet()) {
+                tags.put((String) entry.getKey(), entry.getValue());
+            }
+        }
+
+        @Override
+        public Object get(Object key) {
+            Object value = values.get(key);
+            if (value == null) {
+                Object tag = tags.get(key);
+                if (tag == null) {
+                    return null;
+                }
+                try {
+                    value = access.toJSON(tag);
+                } catch (Throwable throwable) {
+                    throw Throwables.propagate(throwable);
+                }
+                values.put((String) key, value);
+            }
+            return value;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return tags.containsKey(key);
+        }
+
+        @Override
+        public int size() {
+            return tags.size();
+        }
+
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            Set<Entry<String, Object>> entries = new HashSet<>();
+            for (String key : tags.keySet()) {
+                entries.add(new SimpleImmutableEntry<>(key, get(key)));
+            }
+            return entries;
+        }
+
+    }
+
+    /**
+     * The members needed to send packets to players, found once.
+     */
+    private static class PacketAccess {
+
+        private static volatile PacketAccess instance;
+
+        private final MethodHandle getPlayerHandle, sendPacket, playerConnection, newMultiBlockChange;
+
+        private PacketAccess() throws Exception {
+            Class<?> entityPlayer = Reflection.getNMSClass("EntityPlayer").getClazz();
+            Class<?> connection = Reflection.getNMSClass("PlayerConnection").getClazz();
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+
+            getPlayerHandle = lookup.unreflect(ChunkAccess.accessible(Reflection.getCBSClass("entity.CraftPlayer").getClazz().getDeclaredMethod("getHandle"))).asType(MethodType.methodType(Object.class, Player.class));
+            sendPacket = lookup.unreflect(ChunkAccess.accessible(connection.getDeclaredMethod("sendPacket", Reflection.getNMSClass("Packet").getClazz()))).asType(MethodType.methodType(void.class, Object.class, Object.class));
+            playerConnection = ChunkAccess.getter(entityPlayer, "playerConnection", Object.class);
+            newMultiBlockChange = lookup.unreflectConstructor(ChunkAccess.accessible(Reflection.getNMSClass("PacketPlayOutMultiBlockChange").getClazz().getDeclaredConstructor(int.class, short[].class, Reflection.getNMSClass("Chunk").getClazz()))).asType(MethodType.methodType(Object.class, int.class, short[].class, Object.class));
+        }
+
+        private static PacketAccess get() throws Exception {
+            PacketAccess access = instance;
+            if (access == null) {
+                synchronized (PacketAccess.class) {
+                    access = instance;
+                    if (access == null) {
+                        instance = access = new PacketAccess();
+                    }
+                }
+            }
+            return access;
+        }
+
+    }
+
+    @Override
+    public byte[] nbtToBytes(Object nbt) {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(256);
+        DataOutputStream dataOutputStream = new DataOutputStream(outputStream);
+        try {
+            ItemAccess.get().writeNBT.invokeExact(nbt, (DataOutput) dataOutputStream);
+        } catch (Throwable throwable) {
+            BGDCore.debug("Failed to write NBT with the cached handle! Doing it reflectively.");
+            outputStream.reset();
+            NMSReflection.nbtCompressedStreamTools.getStaticMethod("a", new Class[]{NMSReflection.nbtTagCompound.getClazz(), DataOutput.class}).invoke(nbt, dataOutputStream);
+        }
+        return outputStream.toByteArray();
+    }
+
+    @Override
+    public Object bytesToNBT(byte[] bytes) {
+        try {
+            return (Object) ItemAccess.get().readNBT.invokeExact(new DataInputStream(new ByteArrayInputStream(bytes)));
+        } catch (Throwable throwable) {
+            BGDCore.debug("Failed to read NBT with the cached handle! Doing it reflectively.");
+        }
+        return NMSReflection.nbtCompressedStreamTools.getStaticMethod("a", new Class[]{DataInputStream.class}).invoke(new DataInputStream(new ByteArrayInputStream(bytes))).getObject();
+    }
+
     @Override
     public JSONObject nbtToJSON(Object nbt) {
+        try {
+            return (JSONObject) NBTAccess.get().toJSON(nbt);
+        } catch (Throwable throwable) {
+            BGDCore.debug("Failed to convert NBT to JSON with the converters! Doing it reflectively.");
+        }
         return (JSONObject) loadObjectFromNBT(nbt);
     }
 
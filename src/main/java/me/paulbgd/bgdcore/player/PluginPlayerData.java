@@ -24,7 +24,7 @@ public class PluginPlayerData {
         checkLoad();
         JSONObject data = new JSONObject();
         for (Map.Entry<String, ReflectionField> entry : fields.entrySet()) {
-            data.put(entry.getKey(), entry.getValue().getValue().getObject());
+            data.put(entry.getKey(), entry.getValue().get());
         }
         return data;
     }
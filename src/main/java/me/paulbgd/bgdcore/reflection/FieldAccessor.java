@@ -0,0 +1,207 @@
+package me.paulbgd.bgdcore.reflection;
+
+import com.google.common.base.Throwables;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import lombok.Getter;
+
+/**
+ * Reads and writes a field through method handles, made once per field. Primitive fields can be read and written
+ * without boxing through the typed methods, such as {@link #getInt(Object)}. Values set to a primitive field are
+ * unboxed and widened, so an Integer can be set to a long field, just like with {@link Field#set(Object, Object)}.
+ * <p/>
+ * Static fields ignore the instance they're given.
+ */
+public class FieldAccessor {
+
+    private static final ConcurrentMap<Field, FieldAccessor> accessors = new ConcurrentHashMap<>();
+
+    @Getter
+    private final Field field;
+    private final MethodHandle getter, setter;
+    /**
+     * The same as the getter and setter, but using the field's own type. Only used for primitives.
+     */
+    private final MethodHandle typedGetter, typedSetter;
+
+    private FieldAccessor(Field field) throws IllegalAccessException {
+        if (!field.isAccessible()) {
+            field.setAccessible(true);
+        }
+        this.field = field;
+        Class<?> type = field.getType();
+        boolean isStatic = Modifier.isStatic(field.getModifiers());
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+
+        MethodHandle getter = lookup.unreflectGetter(field);
+        MethodHandle setter = null;
+        if (!(isStatic && Modifier.isFinal(field.getModifiers()))) {
+            setter = lookup.unreflectSetter(field);
+        }
+        if (isStatic) {
+            // take an instance anyway, so every accessor is called the same way
+            getter = MethodHandles.dropArguments(getter, 0, Object.class);
+            setter = setter == null ? null : MethodHandles.dropArguments(setter, 0, Object.class);
+        }
+        this.typedGetter = type.isPrimitive() ? getter.asType(MethodType.methodType(type, Object.class)) : null;
+        this.typedSetter = type.isPrimitive() && setter != null ? setter.asType(MethodType.methodType(void.class, Object.class, type)) : null;
+        this.getter = getter.asType(MethodType.methodType(Object.class, Object.class));
+        this.setter = setter == null ? null : setter.asType(MethodType.methodType(void.class, Object.class, Object.class));
+    }
+
+    /**
+     * Gets the accessor of a field, making it the first time
+     *
+     * @param field the field
+     * @return the accessor
+     */
+    public static FieldAccessor of(Field field) {
+        FieldAccessor accessor = accessors.get(field);
+        if (accessor == null) {
+            try {
+                accessor = new FieldAccessor(field);
+            } catch (IllegalAccessException e) {
+                throw new IllegalArgumentException("Can't access field " + field.getName() + "!", e);
+            }
+            FieldAccessor existing = accessors.putIfAbsent(field, accessor);
+            if (existing != null) {
+                accessor = existing;
+            }
+        }
+        return accessor;
+    }
+
+    /**
+     * Forgets the accessors of fields declared by classes loaded by a class loader, so a disabled plugin's classes can
+     * be unloaded
+     *
+     * @param classLoader the class loader
+     */
+    public static void clear(ClassLoader classLoader) {
+        for (Field field : accessors.keySet()) {
+            if (field.getDeclaringClass().getClassLoader() == classLoader) {
+                accessors.remove(field);
+            }
+        }
+    }
+
+    /**
+     * Forgets every accessor
+     */
+    public static void clear() {
+        accessors.clear();
+    }
+
+    public Object get(Object instance) {
+        try {
+            return (Object) getter.invokeExact(instance);
+        } catch (Throwable throwable) {
+            throw Throwables.propagate(throwable);
+        }
+    }
+
+    public void set(Object instance, Object value) {
+        if (setter == null) {
+            throw new IllegalStateException("Field " + field.getName() + " is static and final!");
+        }
+        try {
+            setter.invokeExact(instance, value);
+        } catch (ClassCastException e) {
+            // the handle already unboxes and widens like the field would, so the value can't be set. Let reflection
+            // throw the same IllegalArgumentException it always has
+            try {
+                field.set(instance, value);
+            } catch (IllegalAccessException e1) {
+                throw Throwables.propagate(e1);
+            }
+        } catch (Throwable throwable) {
+            throw Throwables.propagate(throwable);
+        }
+    }
+
+    public boolean getBoolean(Object instance) {
+        checkType(boolean.class, typedGetter);
+        try {
+            return (boolean) typedGetter.invokeExact(instance);
+        } catch (Throwable throwable) {
+            throw Throwables.propagate(throwable);
+        }
+    }
+
+    public void setBoolean(Object instance, boolean value) {
+        checkType(boolean.class, typedSetter);
+        try {
+            typedSetter.invokeExact(instance, value);
+        } catch (Throwable throwable) {
+            throw Throwables.propagate(throwable);
+        }
+    }
+
+    public int getInt(Object instance) {
+        checkType(int.class, typedGetter);
+        try {
+            return (int) typedGetter.invokeExact(instance);
+        } catch (Throwable throwable) {
+            throw Throwables.propagate(throwable);
+        }
+    }
+
+    public void setInt(Object instance, int value) {
+        checkType(int.class, typedSetter);
+        try {
+            typedSetter.invokeExact(instance, value);
+        } catch (Throwable throwable) {
+            throw Throwables.propagate(throwable);
+        }
+    }
+
+    public long getLong(Object instance) {
+        checkType(long.class, typedGetter);
+        try {
+            return (long) typedGetter.invokeExact(instance);
+        } catch (Throwable throwable) {
+            throw Throwables.propagate(throwable);
+        }
+    }
+
+    public void setLong(Object instance, long value) {
+        checkType(long.class, typedSetter);
+        try {
+            typedSetter.invokeExact(instance, value);
+        } catch (Throwable throwable) {
+            throw Throwables.propagate(throwable);
+        }
+    }
+
+    public double getDouble(Object instance) {
+        checkType(double.class, typedGetter);
+        try {
+            return (double) typedGetter.invokeExact(instance);
+        } catch (Throwable throwable) {
+            throw Throwables.propagate(throwable);
+        }
+    }
+
+    public void setDouble(Object instance, double value) {
+        checkType(double.class, typedSetter);
+        try {
+            typedSetter.invokeExact(instance, value);
+        } catch (Throwable throwable) {
+            throw Throwables.propagate(throwable);
+        }
+    }
+
+    private void checkType(Class<?> type, MethodHandle handle) {
+        if (field.getType() != type) {
+            throw new IllegalArgumentException(String.format("Field %s is a %s, not a %s!", field.getName(), field.getType().getSimpleName(), type.getSimpleName()));
+        } else if (handle == null) {
+            throw new IllegalStateException("Field " + field.getName() + " is static and final!");
+        }
+    }
+
+}
@@ -0,0 +1,51 @@
+package me.paulbgd.bgdcore.reflection;
+
+import lombok.Getter;
+
+/**
+ * A class that isn't looked up until it's first used. If it can't be found, the error is printed once and it acts like
+ * {@link Reflection#getClass(String)} returning null from then on.
+ */
+public class LazyReflectionClass extends ReflectionClass {
+
+    @Getter
+    private final String name;
+    private volatile Class<?> resolved = null;
+    private volatile boolean failed = false;
+
+    public LazyReflectionClass(String name) {
+        this.name = name;
+    }
+
+    @Override
+    public Class<?> getClazz() {
+        Class<?> clazz = resolved;
+        if (clazz == null && !failed) {
+            clazz = resolve();
+        }
+        return clazz;
+    }
+
+    private synchronized Class<?> resolve() {
+        if (resolved == null && !failed) {
+            try {
+                // only found, not initialized, so finding it off the main thread doesn't run any of minecraft
+                resolved = Class.forName(name, false, LazyReflectionClass.class.getClassLoader());
+            } catch (ClassNotFoundException e) {
+                failed = true;
+                e.printStackTrace();
+            }
+        }
+        return resolved;
+    }
+
+    /**
+     * Gets if this class has been looked up and found
+     *
+     * @return if it's been found
+     */
+    public boolean isResolved() {
+        return resolved != null;
+    }
+
+}
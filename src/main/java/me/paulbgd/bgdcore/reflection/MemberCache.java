@@ -0,0 +1,318 @@
+package me.paulbgd.bgdcore.reflection;
+
+import com.google.common.primitives.Primitives;
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Remembers every method, field and constructor that's been looked up, so each one is only found once. Members that
+ * don't exist are remembered too, so a bad lookup in a loop doesn't keep throwing.
+ * <p/>
+ * Lookups by arguments work out the argument types while comparing, so a cache hit doesn't allocate anything.
+ */
+public class MemberCache {
+
+    private static final int METHOD = 0, FIELD = 1, CONSTRUCTOR = 2;
+    private static final Object MISSING = new Object();
+
+    private static final ConcurrentMap<Key, Object> members = new ConcurrentHashMap<>();
+    private static final ThreadLocal<Key> probes = new ThreadLocal<Key>() {
+        @Override
+        protected Key initialValue() {
+            return new Key();
+        }
+    };
+
+    private static final AtomicLong hits = new AtomicLong(), resolved = new AtomicLong(), missing = new AtomicLong(), resolveTime = new AtomicLong();
+
+    /**
+     * Gets a method declared in a class
+     *
+     * @param clazz the class
+     * @param name  the method's name
+     * @param types the method's parameter types
+     * @return the method, already accessible, or null if it doesn't exist
+     */
+    public static Method getMethod(Class<?> clazz, String name, Class<?>[] types) {
+        return (Method) get(probes.get().set(METHOD, clazz, name, types, null));
+    }
+
+    /**
+     * Gets a method declared in a class that can be called with some arguments. Wrapped primitives are matched to
+     * primitive parameters.
+     *
+     * @param clazz     the class
+     * @param name      the method's name
+     * @param arguments the arguments
+     * @return the method, already accessible, or null if it doesn't exist
+     */
+    public static Method getMethodFor(Class<?> clazz, String name, Object[] arguments) {
+        return (Method) get(probes.get().set(METHOD, clazz, name, null, arguments));
+    }
+
+    /**
+     * Gets a field declared in a class
+     *
+     * @param clazz the class
+     * @param name  the field's name
+     * @return the field, already accessible, or null if it doesn't exist
+     */
+    public static Field getField(Class<?> clazz, String name) {
+        return (Field) get(probes.get().set(FIELD, clazz, name, null, null));
+    }
+
+    /**
+     * Gets a constructor declared in a class
+     *
+     * @param clazz the class
+     * @param types the constructor's parameter types
+     * @return the constructor, already accessible, or null if it doesn't exist
+     */
+    public static Constructor<?> getConstructor(Class<?> clazz, Class<?>[] types) {
+        return (Constructor<?>) get(probes.get().set(CONSTRUCTOR, clazz, null, types, null));
+    }
+
+    /**
+     * Gets a constructor declared in a class that can be called with some arguments
+     *
+     * @param clazz     the class
+     * @param arguments the arguments
+     * @return the constructor, already accessible, or null if it doesn't exist
+     */
+    public static Constructor<?> getConstructorFor(Class<?> clazz, Object[] arguments) {
+        return (Constructor<?>) get(probes.get().set(CONSTRUCTOR, clazz, null, null, arguments));
+    }
+
+    private static Object get(Key probe) {
+        Object member;
+        try {
+            member = members.get(probe);
+            if (member != null) {
+                hits.incrementAndGet();
+                return member == MISSING ? null : member;
+            }
+            Key key = probe.copy();
+            long start = System.nanoTime();
+            member = resolve(key);
+            resolveTime.addAndGet(System.nanoTime() - start);
+            Object existing = members.putIfAbsent(key, member);
+            if (existing != null) {
+                member = existing; // someone else got there first
+            } else if (member == MISSING) {
+                missing.incrementAndGet();
+            } else {
+                resolved.incrementAndGet();
+            }
+        } finally {
+            probe.clear();
+        }
+        return member == MISSING ? null : member;
+    }
+
+    private static Object resolve(Key key) {
+        try {
+            AccessibleObject member;
+            switch (key.kind) {
+                case METHOD:
+                    member = key.clazz.getDeclaredMethod(key.name, key.types);
+                    break;
+                case FIELD:
+                    member = key.clazz.getDeclaredField(key.name);
+                    break;
+                default:
+                    member = key.clazz.getDeclaredConstructor(key.types);
+                    break;
+            }
+            if (!member.isAccessible()) {
+                member.setAccessible(true);
+            }
+            return member;
+        } catch (NoSuchMethodException | NoSuchFieldException e) {
+            e.printStackTrace(); // only shown the first time
+            return MISSING;
+        }
+    }
+
+    /**
+     * Forgets every member of, or taking, classes loaded by a class loader, so a disabled plugin's classes can be unloaded
+     *
+     * @param classLoader the class loader
+     */
+    public static void clear(ClassLoader classLoader) {
+        for (Key key : members.keySet()) {
+            if (key.isLoadedBy(classLoader)) {
+                members.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Forgets every member
+     */
+    public static void clear() {
+        members.clear();
+    }
+
+    /**
+     * Gets how many lookups were already cached, including ones for members that don't exist
+     *
+     * @return the hits
+     */
+    public static long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Gets how many lookups had to be found
+     *
+     * @return the misses
+     */
+    public static long getMisses() {
+        return resolved.get() + missing.get();
+    }
+
+    /**
+     * Gets how many members were looked up that don't exist
+     *
+     * @return the missing members
+     */
+    public static long getMissing() {
+        return missing.get();
+    }
+
+    /**
+     * Gets how many lookups were already cached, out of all of them
+     *
+     * @return the hit rate, from 0 to 1
+     */
+    public static double getHitRate() {
+        long hits = getHits(), total = hits + getMisses();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    /**
+     * Gets how long has been spent finding members
+     *
+     * @return the time, in nanoseconds
+     */
+    public static long getResolveTime() {
+        return resolveTime.get();
+    }
+
+    /**
+     * Gets how many members are cached
+     *
+     * @return the cached members
+     */
+    public static int getSize() {
+        return members.size();
+    }
+
+    /**
+     * A lookup. Probes are reused by each thread and only hold the arguments while looking up, stored keys always have
+     * their types.
+     */
+    private static final class Key {
+
+        private int kind;
+        private Class<?> clazz;
+        private String name;
+        private Class<?>[] types;
+        private Object[] arguments;
+        private int hash;
+
+        private Key set(int kind, Class<?> clazz, String name, Class<?>[] types, Object[] arguments) {
+            this.kind = kind;
+            this.clazz = clazz;
+            this.name = name;
+            this.types = types;
+            this.arguments = arguments;
+            int hash = (kind * 31 + clazz.hashCode()) * 31 + (name == null ? 0 : name.hashCode());
+            for (int i = 0, size = size(); i < size; i++) {
+                hash = hash * 31 + getType(i).hashCode();
+            }
+            this.hash = hash;
+            return this;
+        }
+
+        private int size() {
+            return types != null ? types.length : arguments != null ? arguments.length : 0;
+        }
+
+        private Class<?> getType(int i) {
+            if (types != null) {
+                return types[i];
+            }
+            // due to how java works, we have to convert to primitives. Guava makes this easy
+            Class<?> type = arguments[i].getClass();
+            return Primitives.isWrapperType(type) ? Primitives.unwrap(type) : type;
+        }
+
+        private Key copy() {
+            Class<?>[] types = new Class<?>[size()];
+            for (int i = 0; i < types.length; i++) {
+                types[i] = getType(i);
+            }
+            return new Key().set(kind, clazz, name, types, null);
+        }
+
+        /**
+         * Checks if the class or any parameter type came from a class loader
+         */
+        private boolean isLoadedBy(ClassLoader classLoader) {
+            if (clazz.getClassLoader() == classLoader) {
+                return true;
+            }
+            for (Class<?> type : types) {
+                if (type.getClassLoader() == classLoader) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void clear() {
+            this.clazz = null;
+            this.name = null;
+            this.types = null;
+            this.arguments = null;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            } else if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            if (hash != key.hash || kind != key.kind || clazz != key.clazz || (name == null ? key.name != null : !name.equals(key.name)) || size() != key.size()) {
+                return false;
+            }
+            for (int i = 0, size = size(); i < size; i++) {
+                if (getType(i) != key.getType(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public String toString() {
+            return clazz.getName() + "." + name + (types == null ? "" : Arrays.toString(types));
+        }
+
+    }
+
+}
@@ -1,35 +1,80 @@
 package me.paulbgd.bgdcore.reflection;
 
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The NMS and CraftBukkit classes BGDCore uses. Each one is only looked up the first time it's used, see
+ * {@link #resolveAll()} to find them all ahead of time.
+ */
 public class NMSReflection {
 
+    private static final List<LazyReflectionClass> classes = new ArrayList<>();
+
     // util
-    public static ReflectionClass craftMagicNumbers = Reflection.getCBSClass("util.CraftMagicNumbers");
+    public static ReflectionClass craftMagicNumbers = cbs("util.CraftMagicNumbers");
 
     // blocks
-    public static ReflectionClass nmsBlock = Reflection.getNMSClass("Block");
-    public static ReflectionClass tileEntity = Reflection.getNMSClass("TileEntity");
+    public static ReflectionClass nmsBlock = nms("Block");
+    public static ReflectionClass tileEntity = nms("TileEntity");
 
     // world
-    public static ReflectionClass nmsWorld = Reflection.getNMSClass("World");
+    public static ReflectionClass nmsWorld = nms("World");
 
     // items
-    public static ReflectionClass craftItemStack = Reflection.getCBSClass("inventory.CraftItemStack");
-    public static ReflectionClass nmsItemStack = Reflection.getNMSClass("ItemStack");
+    public static ReflectionClass craftItemStack = cbs("inventory.CraftItemStack");
+    public static ReflectionClass nmsItemStack = nms("ItemStack");
 
     // nbt
-    public static ReflectionClass nbtCompressedStreamTools = Reflection.getNMSClass("NBTCompressedStreamTools");
-
-    public static ReflectionClass nbtBase = Reflection.getNMSClass("NBTBase");
-    public static ReflectionClass nbtTagCompound = Reflection.getNMSClass("NBTTagCompound");
-    public static ReflectionClass nbtTagList = Reflection.getNMSClass("NBTTagList");
-    public static ReflectionClass nbtTagIntArray = Reflection.getNMSClass("NBTTagIntArray");
-    public static ReflectionClass nbtTagByteArray = Reflection.getNMSClass("NBTTagByteArray");
-    public static ReflectionClass nbtTagString = Reflection.getNMSClass("NBTTagString");
-    public static ReflectionClass nbtTagDouble = Reflection.getNMSClass("NBTTagDouble");
-    public static ReflectionClass nbtTagFloat = Reflection.getNMSClass("NBTTagFloat");
-    public static ReflectionClass nbtTagLong = Reflection.getNMSClass("NBTTagLong");
-    public static ReflectionClass nbtTagInt = Reflection.getNMSClass("NBTTagInt");
-    public static ReflectionClass nbtTagShort = Reflection.getNMSClass("NBTTagShort");
-    public static ReflectionClass nbtTagByte = Reflection.getNMSClass("NBTTagByte");
+    public static ReflectionClass nbtCompressedStreamTools = nms("NBTCompressedStreamTools");
+
+    public static ReflectionClass nbtBase = nms("NBTBase");
+    public static ReflectionClass nbtTagCompound = nms("NBTTagCompound");
+    public static ReflectionClass nbtTagList = nms("NBTTagList");
+    public static ReflectionClass nbtTagIntArray = nms("NBTTagIntArray");
+    public static ReflectionClass nbtTagByteArray = nms("NBTTagByteArray");
+    public static ReflectionClass nbtTagString = nms("NBTTagString");
+    public static ReflectionClass nbtTagDouble = nms("NBTTagDouble");
+    public static ReflectionClass nbtTagFloat = nms("NBTTagFloat");
+    public static ReflectionClass nbtTagLong = nms("NBTTagLong");
+    public static ReflectionClass nbtTagInt = nms("NBTTagInt");
+    public static ReflectionClass nbtTagShort = nms("NBTTagShort");
+    public static ReflectionClass nbtTagByte = nms("NBTTagByte");
+
+    private static ReflectionClass nms(String name) {
+        LazyReflectionClass clazz = new LazyReflectionClass(Reflection.getNmsPath() + "." + name);
+        classes.add(clazz);
+        return clazz;
+    }
+
+    private static ReflectionClass cbs(String name) {
+        LazyReflectionClass clazz = new LazyReflectionClass(Reflection.getCbsPath() + "." + name);
+        classes.add(clazz);
+        return clazz;
+    }
+
+    /**
+     * Looks up every class that hasn't been used yet
+     *
+     * @return the names of the classes that couldn't be found
+     */
+    public static List<String> resolveAll() {
+        List<String> missing = new ArrayList<>();
+        for (LazyReflectionClass clazz : classes) {
+            if (clazz.getClazz() == null) {
+                missing.add(clazz.getName());
+            }
+        }
+        return missing;
+    }
+
+    /**
+     * Gets how many classes there are to look up
+     *
+     * @return the number of classes
+     */
+    public static int getCount() {
+        return classes.size();
+    }
 
 }
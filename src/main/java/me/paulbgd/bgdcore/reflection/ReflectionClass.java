@@ -9,92 +9,57 @@ import lombok.Data;
 @Data
 public class ReflectionClass {
 
+    private static final Class<?>[] noTypes = new Class<?>[0];
+
     private final Class<?> clazz;
 
+    public ReflectionClass(Class<?> clazz) {
+        this.clazz = clazz;
+    }
+
+    /**
+     * For classes that are found later, which override {@link #getClazz()}
+     */
+    protected ReflectionClass() {
+        this(null);
+    }
 
     public ReflectionObject newInstance(Object... arguments) {
+        Constructor<?> constructor = arguments.length == 0 ? MemberCache.getConstructor(getClazz(), noTypes) : MemberCache.getConstructorFor(getClazz(), arguments);
+        if (constructor == null) {
+            return null;
+        }
         try {
-            if (arguments.length == 0) {
-                Constructor constructor = clazz.getDeclaredConstructor();
-                if (!constructor.isAccessible()) {
-                    constructor.setAccessible(true);
-                }
-                return new ReflectionObject(constructor.newInstance());
-            }
-            Constructor<?> constructor = clazz.getDeclaredConstructor(Reflection.objectsToClassArray(arguments));
-            if (!constructor.isAccessible()) {
-                constructor.setAccessible(true);
-            }
             return new ReflectionObject(constructor.newInstance(arguments));
-        } catch (InstantiationException | IllegalAccessException | InvocationTargetException | NoSuchMethodException e) {
+        } catch (InstantiationException | IllegalAccessException | InvocationTargetException e) {
             e.printStackTrace();
         }
         return null;
     }
 
     public ReflectionField getStaticField(String name) {
-        try {
-            Field field = clazz.getDeclaredField(name);
-            if (!field.isAccessible()) {
-                field.setAccessible(true);
-            }
-            return new ReflectionField(null, field);
-        } catch (NoSuchFieldException e) {
-            e.printStackTrace();
-        }
-        return null;
+        Field field = MemberCache.getField(getClazz(), name);
+        return field == null ? null : new ReflectionField(null, field);
     }
 
     public ReflectionMethod getStaticMethod(String name, Object... arguments) {
-        try {
-            Method method = clazz.getDeclaredMethod(name, Reflection.objectsToClassArray(arguments));
-            if (!method.isAccessible()) {
-                method.setAccessible(true);
-            }
-            return new ReflectionMethod(null, method);
-        } catch (NoSuchMethodException e) {
-            e.printStackTrace();
-        }
-        return null;
+        Method method = MemberCache.getMethodFor(getClazz(), name, arguments);
+        return method == null ? null : new ReflectionMethod(null, method);
     }
 
     public ReflectionMethod getStaticMethod(String name, Class[] arguments) {
-        try {
-            Method method = clazz.getDeclaredMethod(name, arguments);
-            if (!method.isAccessible()) {
-                method.setAccessible(true);
-            }
-            return new ReflectionMethod(null, method);
-        } catch (NoSuchMethodException e) {
-            e.printStackTrace();
-        }
-        return null;
+        Method method = MemberCache.getMethod(getClazz(), name, arguments);
+        return method == null ? null : new ReflectionMethod(null, method);
     }
 
     public ReflectionMethod getMethod(Object instance, String name, Object... arguments) {
-        try {
-            Method method = clazz.getDeclaredMethod(name, Reflection.objectsToClassArray(arguments));
-            if (!method.isAccessible()) {
-                method.setAccessible(true);
-            }
-            return new ReflectionMethod(instance, method);
-        } catch (NoSuchMethodException e) {
-            e.printStackTrace();
-        }
-        return null;
+        Method method = MemberCache.getMethodFor(getClazz(), name, arguments);
+        return method == null ? null : new ReflectionMethod(instance, method);
     }
 
     public ReflectionMethod getMethod(Object instance, String name, Class[] arguments) {
-        try {
-            Method method = clazz.getDeclaredMethod(name, arguments);
-            if (!method.isAccessible()) {
-                method.setAccessible(true);
-            }
-            return new ReflectionMethod(instance, method);
-        } catch (NoSuchMethodException e) {
-            e.printStackTrace();
-        }
-        return null;
+        Method method = MemberCache.getMethod(getClazz(), name, arguments);
+        return method == null ? null : new ReflectionMethod(instance, method);
     }
 
 
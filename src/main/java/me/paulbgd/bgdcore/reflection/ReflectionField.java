@@ -1,26 +1,46 @@
 package me.paulbgd.bgdcore.reflection;
 
 import java.lang.reflect.Field;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
 
 @Data
+@EqualsAndHashCode(exclude = "accessor")
+@ToString(exclude = "accessor")
 public class ReflectionField {
 
     private final Object object;
     private final Field field;
+    @Getter(AccessLevel.NONE)
+    private final FieldAccessor accessor;
 
     public ReflectionField(Object object, Field field) {
-        if (!field.isAccessible()) {
-            field.setAccessible(true);
-        }
         this.object = object;
         this.field = field;
+        this.accessor = FieldAccessor.of(field);
+    }
+
+    /**
+     * Gets the value of this field, without wrapping it
+     *
+     * @return the value
+     */
+    public Object get() {
+        try {
+            return accessor.get(object);
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        return null;
     }
 
     public ReflectionObject getValue() {
         try {
-            return new ReflectionObject(field.get(object));
-        } catch (IllegalAccessException e) {
+            return new ReflectionObject(accessor.get(object));
+        } catch (Exception e) {
             e.printStackTrace();
         }
         return null;
@@ -28,8 +48,8 @@ public class ReflectionField {
 
     public void setValue(Object value) {
         try {
-            field.set(object, value);
-        } catch (IllegalAccessException e) {
+            accessor.set(object, value);
+        } catch (Exception e) {
             e.printStackTrace();
         }
     }
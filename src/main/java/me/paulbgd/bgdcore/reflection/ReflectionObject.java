@@ -12,33 +12,18 @@ public class ReflectionObject {
     private final Object object;
 
     public ReflectionMethod getMethodByClasses(String name, Class... argumentTypes) {
-        try {
-            Method method = object.getClass().getDeclaredMethod(name, argumentTypes);
-            if (!method.isAccessible()) {
-                method.setAccessible(true);
-            }
-            return new ReflectionMethod(this.object, method);
-        } catch (NoSuchMethodException e) {
-            e.printStackTrace();
-        }
-        return null;
+        Method method = MemberCache.getMethod(object.getClass(), name, argumentTypes);
+        return method == null ? null : new ReflectionMethod(this.object, method);
     }
 
     public ReflectionMethod getMethod(String name, Object... arguments) {
-        return getMethodByClasses(name, Reflection.objectsToClassArray(arguments));
+        Method method = MemberCache.getMethodFor(object.getClass(), name, arguments);
+        return method == null ? null : new ReflectionMethod(this.object, method);
     }
 
     public ReflectionField getField(String name) {
-        try {
-            Field field = object.getClass().getDeclaredField(name);
-            if (!field.isAccessible()) {
-                field.setAccessible(true);
-            }
-            return new ReflectionField(this.object, field);
-        } catch (NoSuchFieldException e) {
-            e.printStackTrace();
-        }
-        return null;
+        Field field = MemberCache.getField(object.getClass(), name);
+        return field == null ? null : new ReflectionField(this.object, field);
     }
 
     public List<ReflectionClass> getSubClasses() {
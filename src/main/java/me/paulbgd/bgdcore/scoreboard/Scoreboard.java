@@ -163,7 +163,7 @@ public class Scoreboard {
         ReflectionField reflectionField = reflectionObject.getField(field);
         Scoreboard scoreboard = this;
         while (scoreboard != null) {
-            Object object = reflectionField.getValue().getObject();
+            Object object = reflectionField.get();
             if (object != null && !object.equals(false)) {
                 return scoreboard;
             }